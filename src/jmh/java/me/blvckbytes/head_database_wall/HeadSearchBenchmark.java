@@ -0,0 +1,47 @@
+package me.blvckbytes.head_database_wall;
+
+import org.openjdk.jmh.annotations.*;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class HeadSearchBenchmark {
+
+  @Param({ "10000", "50000", "60000" })
+  private int numberOfHeads;
+
+  private List<CatalogHead> heads;
+  private HeadSearchIndex searchIndex;
+
+  @Setup
+  public void setup() {
+    heads = SyntheticHeads.make(numberOfHeads);
+    searchIndex = new HeadSearchIndex(heads);
+  }
+
+  @Benchmark
+  public HeadSearchIndex buildIndex() {
+    return new HeadSearchIndex(heads);
+  }
+
+  @Benchmark
+  public List<CatalogHead> searchPrefix() {
+    return searchIndex.search("app");
+  }
+
+  @Benchmark
+  public List<CatalogHead> searchInfix() {
+    return searchIndex.search("ppl");
+  }
+
+  @Benchmark
+  public List<CatalogHead> searchMultipleTerms() {
+    return searchIndex.search("red apple");
+  }
+}
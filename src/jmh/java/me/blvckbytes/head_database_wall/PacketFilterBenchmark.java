@@ -0,0 +1,100 @@
+package me.blvckbytes.head_database_wall;
+
+import org.bukkit.Location;
+import org.bukkit.Material;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Covers the session's lookups behind the packet-filter, which run for every block-change around
+ * every player in a session, as well as for every click onto the wall.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class PacketFilterBenchmark {
+
+  private static final int NUMBER_OF_PROBES = 1024;
+
+  @Param({ "5", "10" })
+  private int rows;
+
+  @Param({ "8", "20" })
+  private int columns;
+
+  @Param({ "BLOCKS", "DISPLAY_ENTITIES" })
+  private HeadWallRenderMode renderMode;
+
+  private HeadWallSession session;
+
+  // Half of the probes lie within the wall's bounds, the other half in the area around it
+  private int[] probeX, probeY, probeZ;
+  private Location[] probeLocations;
+
+  @Setup
+  public void setup() {
+    FakeServer.install();
+
+    var parameters = new HeadWallParameters(rows, columns, 3, Material.COAL_BLOCK, true, renderMode);
+    var world = FakeServer.airWorld("world");
+    var player = FakeServer.player("Player", new Location(world, .5, 64, .5, 0, 0));
+
+    session = new HeadWallSession(player, SyntheticHeads.make(rows * columns), parameters, new RecordingCommunicator(), new WallMetrics());
+    session.show();
+
+    // Mirrors the session's own layout, which is not exposed
+    var geometry = new HeadWallGeometry(0, 64, 0, 0, parameters);
+
+    probeX = new int[NUMBER_OF_PROBES];
+    probeY = new int[NUMBER_OF_PROBES];
+    probeZ = new int[NUMBER_OF_PROBES];
+    probeLocations = new Location[NUMBER_OF_PROBES];
+
+    var random = new Random(42);
+
+    for (var probeIndex = 0; probeIndex < NUMBER_OF_PROBES; ++probeIndex) {
+      var margin = probeIndex % 2 == 0 ? 0 : 16;
+
+      probeX[probeIndex] = randomBetween(random, geometry.minX - margin, geometry.maxX + margin);
+      probeY[probeIndex] = randomBetween(random, geometry.minY - margin, geometry.maxY + margin);
+      probeZ[probeIndex] = randomBetween(random, geometry.minZ - margin, geometry.maxZ + margin);
+      probeLocations[probeIndex] = new Location(world, probeX[probeIndex], probeY[probeIndex], probeZ[probeIndex]);
+    }
+  }
+
+  @TearDown
+  public void tearDown() {
+    session.close();
+  }
+
+  @Benchmark
+  @OperationsPerInvocation(NUMBER_OF_PROBES)
+  public void blockChangeFilter(Blackhole blackhole) {
+    for (var probeIndex = 0; probeIndex < NUMBER_OF_PROBES; ++probeIndex)
+      blackhole.consume(session.areCoordinatesPartOfSession(probeX[probeIndex], probeY[probeIndex], probeZ[probeIndex]));
+  }
+
+  @Benchmark
+  @OperationsPerInvocation(NUMBER_OF_PROBES)
+  public void sectionFilter(Blackhole blackhole) {
+    for (var probeIndex = 0; probeIndex < NUMBER_OF_PROBES; ++probeIndex)
+      blackhole.consume(session.doesSectionIntersectSession(probeX[probeIndex] >> 4, probeY[probeIndex] >> 4, probeZ[probeIndex] >> 4));
+  }
+
+  @Benchmark
+  @OperationsPerInvocation(NUMBER_OF_PROBES)
+  public void headLookup(Blackhole blackhole) {
+    for (var probeIndex = 0; probeIndex < NUMBER_OF_PROBES; ++probeIndex)
+      blackhole.consume(session.getHeadAtLocation(probeLocations[probeIndex]));
+  }
+
+  private static int randomBetween(Random random, int min, int max) {
+    return min + random.nextInt(max - min + 1);
+  }
+}
@@ -0,0 +1,78 @@
+package me.blvckbytes.head_database_wall;
+
+import org.bukkit.Location;
+import org.bukkit.Material;
+import org.bukkit.entity.Player;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Covers the main-thread's share of a session's renders, from snapshotting the world and drawing
+ * the first page up to flipping pages, against a communicator which only records the traffic;
+ * encoding the packets themselves happens off the main-thread and requires a running server.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class PageRenderBenchmark {
+
+  // Enough pages for consecutive flips to never show the same heads twice in a row
+  private static final int NUMBER_OF_PAGES = 8;
+
+  @Param({ "5", "10" })
+  private int rows;
+
+  @Param({ "8", "20" })
+  private int columns;
+
+  @Param({ "BLOCKS", "DISPLAY_ENTITIES" })
+  private HeadWallRenderMode renderMode;
+
+  private HeadWallParameters parameters;
+  private RecordingCommunicator communicator;
+  private WallMetrics metrics;
+  private Player player;
+  private List<CatalogHead> heads;
+
+  private HeadWallSession session;
+
+  @Setup
+  public void setup() {
+    FakeServer.install();
+
+    parameters = new HeadWallParameters(rows, columns, 3, Material.COAL_BLOCK, true, renderMode);
+    communicator = new RecordingCommunicator();
+    metrics = new WallMetrics();
+    player = FakeServer.player("Player", new Location(FakeServer.airWorld("world"), .5, 64, .5, 0, 0));
+    heads = SyntheticHeads.make(rows * columns * NUMBER_OF_PAGES);
+
+    session = new HeadWallSession(player, heads, parameters, communicator, metrics);
+    session.show();
+  }
+
+  @TearDown
+  public void tearDown() {
+    session.close();
+  }
+
+  @Benchmark
+  public HeadWallSession openAndClose() {
+    var session = new HeadWallSession(player, heads, parameters, communicator, metrics);
+
+    session.show();
+    session.close();
+
+    return session;
+  }
+
+  @Benchmark
+  public boolean turnPage() {
+    session.queuePageTurn(1);
+    return session.applyPendingPageTurns();
+  }
+}
@@ -0,0 +1,185 @@
+package me.blvckbytes.head_database_wall;
+
+import it.unimi.dsi.fastutil.longs.Long2ObjectLinkedOpenHashMap;
+import it.unimi.dsi.fastutil.longs.Long2ObjectMap;
+import org.bukkit.block.TileState;
+import org.bukkit.block.data.BlockData;
+import org.bukkit.entity.Player;
+
+import javax.annotation.Nullable;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.List;
+
+public class BlockChangeBatch {
+
+  public static class SectionChanges {
+
+    public final int sectionX, sectionY, sectionZ;
+
+    private short[] relativePositions;
+    private BlockData[] blockData;
+    private int size;
+
+    private SectionChanges(int sectionX, int sectionY, int sectionZ) {
+      this.sectionX = sectionX;
+      this.sectionY = sectionY;
+      this.sectionZ = sectionZ;
+      this.relativePositions = new short[16];
+      this.blockData = new BlockData[16];
+    }
+
+    private void add(int x, int y, int z, BlockData data) {
+      if (size == relativePositions.length) {
+        relativePositions = Arrays.copyOf(relativePositions, size * 2);
+        blockData = Arrays.copyOf(blockData, size * 2);
+      }
+
+      // Same layout as the vanilla section-blocks-update packet: xxxx zzzz yyyy
+      relativePositions[size] = (short) (((x & 15) << 8) | ((z & 15) << 4) | (y & 15));
+      blockData[size] = data;
+      ++size;
+    }
+
+    public int size() {
+      return size;
+    }
+
+    public short getRelativePosition(int index) {
+      return relativePositions[index];
+    }
+
+    public BlockData getBlockData(int index) {
+      return blockData[index];
+    }
+
+    public int getAbsoluteX(int index) {
+      return (sectionX << 4) | ((relativePositions[index] >> 8) & 15);
+    }
+
+    public int getAbsoluteY(int index) {
+      return (sectionY << 4) | (relativePositions[index] & 15);
+    }
+
+    public int getAbsoluteZ(int index) {
+      return (sectionZ << 4) | ((relativePositions[index] >> 4) & 15);
+    }
+  }
+
+  public record SkullTexture(int x, int y, int z, String base64Textures) {}
+
+  private final Long2ObjectMap<SectionChanges> changesBySectionKey;
+
+  private @Nullable Object cancellationTag;
+
+  private boolean hasFocus;
+  private int focusX, focusY, focusZ;
+
+  // Tile-entity data may only be applied after the block itself has been placed
+  private final List<SkullTexture> skullTextures;
+  private final List<TileState> tileStates;
+
+  public BlockChangeBatch() {
+    this.changesBySectionKey = new Long2ObjectLinkedOpenHashMap<>();
+    this.skullTextures = new ArrayList<>();
+    this.tileStates = new ArrayList<>();
+  }
+
+  public void add(int x, int y, int z, BlockData blockData) {
+    var sectionX = x >> 4;
+    var sectionY = y >> 4;
+    var sectionZ = z >> 4;
+
+    var sectionKey = sectionKey(sectionX, sectionY, sectionZ);
+    var sectionChanges = changesBySectionKey.get(sectionKey);
+
+    if (sectionChanges == null) {
+      sectionChanges = new SectionChanges(sectionX, sectionY, sectionZ);
+      changesBySectionKey.put(sectionKey, sectionChanges);
+    }
+
+    sectionChanges.add(x, y, z, blockData);
+  }
+
+  public void addSkullTexture(int x, int y, int z, String base64Textures) {
+    skullTextures.add(new SkullTexture(x, y, z, base64Textures));
+  }
+
+  public void addTileState(TileState tileState) {
+    tileStates.add(tileState);
+  }
+
+  /**
+   * Causes both section-changes and skull-textures to be ordered from the focus outward, such that
+   * paced sending draws the part of the wall the viewer is most likely looking at first.
+   */
+  public void setFocus(int x, int y, int z) {
+    this.hasFocus = true;
+    this.focusX = x;
+    this.focusY = y;
+    this.focusZ = z;
+  }
+
+  /**
+   * Allows for the not yet sent remainder of this batch to be dropped again, as soon as it has been
+   * superseded, see {@link HeadWallCommunicator#cancelPendingChanges(Player, Object)}.
+   */
+  public void setCancellationTag(@Nullable Object cancellationTag) {
+    this.cancellationTag = cancellationTag;
+  }
+
+  public @Nullable Object getCancellationTag() {
+    return cancellationTag;
+  }
+
+  public Collection<SectionChanges> getSectionChanges() {
+    if (!hasFocus)
+      return changesBySectionKey.values();
+
+    var sectionChanges = new ArrayList<>(changesBySectionKey.values());
+
+    sectionChanges.sort(Comparator.comparingLong(changes -> distanceSquaredToFocus(
+      (changes.sectionX << 4) + 8, (changes.sectionY << 4) + 8, (changes.sectionZ << 4) + 8
+    )));
+
+    return sectionChanges;
+  }
+
+  public List<SkullTexture> getSkullTextures() {
+    if (hasFocus)
+      skullTextures.sort(Comparator.comparingLong(texture -> distanceSquaredToFocus(texture.x, texture.y, texture.z)));
+
+    return skullTextures;
+  }
+
+  public List<TileState> getTileStates() {
+    return tileStates;
+  }
+
+  /**
+   * @return Number of packets this batch is sent as, where all changes of a section make up a single one
+   */
+  public int getNumberOfPackets() {
+    return changesBySectionKey.size() + skullTextures.size() + tileStates.size();
+  }
+
+  public boolean isEmpty() {
+    return changesBySectionKey.isEmpty() && skullTextures.isEmpty() && tileStates.isEmpty();
+  }
+
+  private long distanceSquaredToFocus(int x, int y, int z) {
+    long deltaX = x - focusX;
+    long deltaY = y - focusY;
+    long deltaZ = z - focusZ;
+
+    return deltaX * deltaX + deltaY * deltaY + deltaZ * deltaZ;
+  }
+
+  private static long sectionKey(int sectionX, int sectionY, int sectionZ) {
+    // Same packing as vanilla's SectionPos#asLong; 22 bits for x/z, 20 bits for y
+    return ((sectionX & 0x3FFFFFL) << 42) | (sectionY & 0xFFFFFL) | ((sectionZ & 0x3FFFFFL) << 20);
+  }
+}
@@ -0,0 +1,68 @@
+package me.blvckbytes.head_database_wall;
+
+import com.comphenix.protocol.wrappers.WrappedBlockData;
+import org.bukkit.Bukkit;
+import org.bukkit.block.data.BlockData;
+
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+import java.lang.reflect.Field;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Converts Bukkit block-data into ProtocolLib-wrappers by reading the NMS state straight off of the
+ * CraftBlockData. As NMS states are singletons, their wrappers are created once and then shared by all
+ * packets, keyed by identity; there are only so many states, which bounds the cache naturally.
+ */
+public class BlockDataConverter {
+
+  private final MethodHandle handleGetter;
+  private final Map<Object, WrappedBlockData> wrapperByHandle;
+
+  public BlockDataConverter() throws Exception {
+    var blockDataClass = Class.forName(Bukkit.getServer().getClass().getPackageName() + ".block.data.CraftBlockData");
+
+    Field handleField = null;
+
+    for (var field : blockDataClass.getDeclaredFields()) {
+      if (!field.getType().getPackageName().startsWith("net.minecraft"))
+        continue;
+
+      if (handleField != null)
+        throw new IllegalStateException("Found multiple candidates for the handle-field within " + blockDataClass);
+
+      handleField = field;
+    }
+
+    if (handleField == null)
+      throw new IllegalStateException("Could not locate the handle-field within " + blockDataClass);
+
+    handleField.setAccessible(true);
+
+    this.handleGetter = MethodHandles.lookup()
+      .unreflectGetter(handleField)
+      .asType(MethodType.methodType(Object.class, Object.class));
+
+    // NMS states do not override equals/hashCode, thus hashing by identity
+    this.wrapperByHandle = new ConcurrentHashMap<>();
+  }
+
+  public WrappedBlockData convert(BlockData blockData) {
+    Object handle;
+
+    try {
+      handle = (Object) handleGetter.invokeExact((Object) blockData);
+    } catch (Throwable e) {
+      throw new IllegalStateException("Could not read the handle of " + blockData, e);
+    }
+
+    var wrapper = wrapperByHandle.get(handle);
+
+    if (wrapper != null)
+      return wrapper;
+
+    return wrapperByHandle.computeIfAbsent(handle, WrappedBlockData::fromHandle);
+  }
+}
@@ -0,0 +1,81 @@
+package me.blvckbytes.head_database_wall;
+
+import com.comphenix.protocol.events.PacketContainer;
+import com.comphenix.protocol.reflect.StructureModifier;
+import com.comphenix.protocol.utility.MinecraftReflection;
+
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+import java.lang.reflect.Field;
+import java.lang.reflect.Modifier;
+import java.util.ArrayList;
+
+/**
+ * Reads the coordinates of a packet's block-position straight off of the NMS handle, as to
+ * not allocate a ProtocolLib-wrapper for every single packet passing through the filter.
+ */
+public class BlockPositionAccessor {
+
+  private final Class<?> blockPositionClass;
+  private final MethodHandle xGetter, yGetter, zGetter;
+
+  public BlockPositionAccessor() throws Exception {
+    this.blockPositionClass = MinecraftReflection.getBlockPositionClass();
+
+    // BlockPosition extends the generic integer-vector, which holds the coordinates in the order x, y, z
+    var vectorClass = blockPositionClass.getSuperclass();
+    var coordinateFields = new ArrayList<Field>();
+
+    for (var field : vectorClass.getDeclaredFields()) {
+      if (field.getType() != int.class || Modifier.isStatic(field.getModifiers()))
+        continue;
+
+      coordinateFields.add(field);
+    }
+
+    if (coordinateFields.size() != 3)
+      throw new IllegalStateException("Expected exactly three coordinate-fields within " + vectorClass + ", found " + coordinateFields.size());
+
+    this.xGetter = makeGetter(coordinateFields.get(0));
+    this.yGetter = makeGetter(coordinateFields.get(1));
+    this.zGetter = makeGetter(coordinateFields.get(2));
+  }
+
+  public Object readHandle(PacketContainer packet) {
+    StructureModifier<?> modifier = packet.getSpecificModifier(blockPositionClass);
+    return modifier.read(0);
+  }
+
+  public int getX(Object handle) {
+    try {
+      return (int) xGetter.invokeExact(handle);
+    } catch (Throwable e) {
+      throw new IllegalStateException("Could not read the x-coordinate of " + handle, e);
+    }
+  }
+
+  public int getY(Object handle) {
+    try {
+      return (int) yGetter.invokeExact(handle);
+    } catch (Throwable e) {
+      throw new IllegalStateException("Could not read the y-coordinate of " + handle, e);
+    }
+  }
+
+  public int getZ(Object handle) {
+    try {
+      return (int) zGetter.invokeExact(handle);
+    } catch (Throwable e) {
+      throw new IllegalStateException("Could not read the z-coordinate of " + handle, e);
+    }
+  }
+
+  private static MethodHandle makeGetter(Field field) throws IllegalAccessException {
+    field.setAccessible(true);
+
+    return MethodHandles.lookup()
+      .unreflectGetter(field)
+      .asType(MethodType.methodType(int.class, Object.class));
+  }
+}
@@ -0,0 +1,135 @@
+package me.blvckbytes.head_database_wall;
+
+import it.unimi.dsi.fastutil.longs.Long2ObjectOpenHashMap;
+import org.bukkit.ChunkSnapshot;
+import org.bukkit.Material;
+import org.bukkit.World;
+import org.bukkit.block.TileState;
+import org.bukkit.block.data.BlockData;
+
+import javax.annotation.Nullable;
+import java.util.Arrays;
+import java.util.HashMap;
+
+/**
+ * Captures the real state of all blocks of a wall once, on the main-thread, such that restoring them
+ * later on never has to access the live world again, no matter which thread it happens on.
+ * Block-data is stored palette-compressed, as most blocks of a session share the same few states.
+ */
+public class BlockSnapshot {
+
+  private final BlockData[] palette;
+  private final boolean[] isAirByPaletteIndex;
+  private final short[] paletteIndexByCell;
+
+  // Only allocated if there's at least one tile-entity within the wall, which is rare
+  private final @Nullable TileState[] tileStateByCell;
+
+  private BlockSnapshot(BlockData[] palette, short[] paletteIndexByCell, @Nullable TileState[] tileStateByCell) {
+    this.palette = palette;
+    this.isAirByPaletteIndex = new boolean[palette.length];
+
+    for (var paletteIndex = 0; paletteIndex < palette.length; ++paletteIndex)
+      isAirByPaletteIndex[paletteIndex] = palette[paletteIndex].getMaterial().isAir();
+
+    this.paletteIndexByCell = paletteIndexByCell;
+    this.tileStateByCell = tileStateByCell;
+  }
+
+  public BlockData getBlockData(int cellIndex) {
+    return palette[paletteIndexByCell[cellIndex]];
+  }
+
+  public boolean isAir(int cellIndex) {
+    return isAirByPaletteIndex[paletteIndexByCell[cellIndex]];
+  }
+
+  public @Nullable TileState getTileState(int cellIndex) {
+    if (tileStateByCell == null)
+      return null;
+
+    return tileStateByCell[cellIndex];
+  }
+
+  /**
+   * Cells outside the world's height, which chunks cannot be asked about, are captured as air.
+   */
+  public static BlockSnapshot capture(World world, HeadWallGeometry geometry) {
+    var minHeight = world.getMinHeight();
+    var maxHeight = world.getMaxHeight();
+    BlockData outsideBlockData = null;
+
+    var numberOfCells = geometry.getNumberOfCells();
+    var paletteIndexByCell = new short[numberOfCells];
+    var paletteIndexByBlockData = new HashMap<BlockData, Integer>();
+    var palette = new BlockData[8];
+    var paletteSize = 0;
+
+    var chunkSnapshotByChunkKey = new Long2ObjectOpenHashMap<ChunkSnapshot>();
+
+    for (var cellIndex = 0; cellIndex < numberOfCells; ++cellIndex) {
+      var x = geometry.getCellX(cellIndex);
+      var y = geometry.getCellY(cellIndex);
+      var z = geometry.getCellZ(cellIndex);
+
+      BlockData blockData;
+
+      if (y < minHeight || y >= maxHeight) {
+        if (outsideBlockData == null)
+          outsideBlockData = Material.AIR.createBlockData();
+
+        blockData = outsideBlockData;
+      } else {
+        var chunkKey = chunkKey(x >> 4, z >> 4);
+        var chunkSnapshot = chunkSnapshotByChunkKey.get(chunkKey);
+
+        if (chunkSnapshot == null) {
+          chunkSnapshot = world.getChunkAt(x >> 4, z >> 4).getChunkSnapshot();
+          chunkSnapshotByChunkKey.put(chunkKey, chunkSnapshot);
+        }
+
+        blockData = chunkSnapshot.getBlockData(x & 15, y, z & 15);
+      }
+
+      var paletteIndex = paletteIndexByBlockData.get(blockData);
+
+      if (paletteIndex == null) {
+        if (paletteSize == palette.length)
+          palette = Arrays.copyOf(palette, paletteSize * 2);
+
+        paletteIndex = paletteSize;
+        palette[paletteSize++] = blockData;
+        paletteIndexByBlockData.put(blockData, paletteIndex);
+      }
+
+      paletteIndexByCell[cellIndex] = paletteIndex.shortValue();
+    }
+
+    TileState[] tileStateByCell = null;
+
+    for (var chunkSnapshot : chunkSnapshotByChunkKey.values()) {
+      var chunk = world.getChunkAt(chunkSnapshot.getX(), chunkSnapshot.getZ());
+
+      for (var blockState : chunk.getTileEntities()) {
+        if (!(blockState instanceof TileState tileState))
+          continue;
+
+        var cellIndex = geometry.getCellIndex(tileState.getX(), tileState.getY(), tileState.getZ());
+
+        if (cellIndex < 0)
+          continue;
+
+        if (tileStateByCell == null)
+          tileStateByCell = new TileState[numberOfCells];
+
+        tileStateByCell[cellIndex] = tileState;
+      }
+    }
+
+    return new BlockSnapshot(Arrays.copyOf(palette, paletteSize), paletteIndexByCell, tileStateByCell);
+  }
+
+  private static long chunkKey(int chunkX, int chunkZ) {
+    return (chunkX & 0xFFFFFFFFL) | ((chunkZ & 0xFFFFFFFFL) << 32);
+  }
+}
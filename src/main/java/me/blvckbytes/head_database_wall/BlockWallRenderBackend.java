@@ -0,0 +1,88 @@
+package me.blvckbytes.head_database_wall;
+
+import org.bukkit.Location;
+import org.bukkit.Material;
+import org.bukkit.block.BlockFace;
+import org.bukkit.block.data.BlockData;
+import org.bukkit.entity.Player;
+
+import javax.annotation.Nullable;
+import java.util.List;
+
+/**
+ * Renders heads as fake wall-skulls, textured by tile-entity data, mounted onto the wall.
+ */
+public class BlockWallRenderBackend implements WallRenderBackend {
+
+  private final HeadWallGeometry geometry;
+  private final HeadWallCommunicator communicator;
+
+  private final BlockFace mountingFace;
+  private final BlockData headBlockData;
+  private final BlockData airBlockData;
+
+  public BlockWallRenderBackend(HeadWallGeometry geometry, HeadWallCommunicator communicator) {
+    this.geometry = geometry;
+    this.communicator = communicator;
+
+    this.mountingFace = geometry.lookingFace.getOppositeFace();
+    this.headBlockData = communicator.getSkullBlockData(mountingFace);
+    this.airBlockData = Material.AIR.createBlockData();
+  }
+
+  @Override
+  public boolean occupiesHeadLayer() {
+    return true;
+  }
+
+  @Override
+  public int renderSlots(
+    List<Player> players, BlockChangeBatch batch,
+    @Nullable String[] texturesBySlot, int[] changedSlots, int numberOfChangedSlots,
+    boolean spawn, @Nullable Object cancellationTag
+  ) {
+    for (var changedSlotIndex = 0; changedSlotIndex < numberOfChangedSlots; ++changedSlotIndex) {
+      var slotIndex = changedSlots[changedSlotIndex];
+      var cellIndex = geometry.getHeadCellIndex(slotIndex);
+      var textures = texturesBySlot[slotIndex];
+
+      var x = geometry.getCellX(cellIndex);
+      var y = geometry.getCellY(cellIndex);
+      var z = geometry.getCellZ(cellIndex);
+
+      if (textures == null) {
+        batch.add(x, y, z, airBlockData);
+        continue;
+      }
+
+      batch.add(x, y, z, headBlockData);
+      batch.addSkullTexture(x, y, z, textures);
+    }
+
+    if (batch.isEmpty())
+      return 0;
+
+    communicator.sendBlockChanges(players, batch);
+    return batch.getNumberOfPackets();
+  }
+
+  @Override
+  public void resendSlot(Player player, Location location, @Nullable String textures) {
+    if (textures == null) {
+      communicator.sendBlockChange(player, location, airBlockData);
+      return;
+    }
+
+    communicator.updateBlockToTexturedSkull(player, mountingFace, location, textures);
+  }
+
+  @Override
+  public int despawnSlots(List<Player> players) {
+    return 0;
+  }
+
+  @Override
+  public int findSlotByEntityId(int entityId) {
+    return -1;
+  }
+}
@@ -0,0 +1,91 @@
+package me.blvckbytes.head_database_wall;
+
+import javax.annotation.Nullable;
+import java.util.LinkedHashMap;
+import java.util.function.Function;
+import java.util.function.ToIntBiFunction;
+
+/**
+ * Least recently used cache of values which are created on demand, bounded by the total weight of
+ * its entries, as determined by the weigher; a weight of one per entry bounds the number of entries.
+ */
+public class BoundedLruCache<K, V> {
+
+  private final long maxWeight;
+  private final Function<K, V> valueFactory;
+  private final ToIntBiFunction<K, V> weigher;
+
+  // Access-ordered, as to evict the least recently used value first
+  private final LinkedHashMap<K, Entry<V>> entryByKey;
+
+  private long currentWeight;
+  private long hits, misses, evictions;
+
+  private record Entry<V>(V value, int weight) {}
+
+  public BoundedLruCache(long maxWeight, Function<K, V> valueFactory, ToIntBiFunction<K, V> weigher) {
+    this.maxWeight = maxWeight;
+    this.valueFactory = valueFactory;
+    this.weigher = weigher;
+    this.entryByKey = new LinkedHashMap<>(256, .75F, true);
+  }
+
+  /**
+   * Returns the shared, never to be modified, value for the given key; absent values, as signalled
+   * by the factory returning null, are not cached, as to retry on the next call.
+   */
+  public synchronized @Nullable V get(K key) {
+    var entry = entryByKey.get(key);
+
+    if (entry != null) {
+      ++hits;
+      return entry.value;
+    }
+
+    ++misses;
+
+    var value = valueFactory.apply(key);
+
+    if (value == null)
+      return null;
+
+    entry = new Entry<>(value, weigher.applyAsInt(key, value));
+
+    entryByKey.put(key, entry);
+    currentWeight += entry.weight;
+
+    for (var entryIterator = entryByKey.values().iterator(); entryIterator.hasNext();) {
+      if (currentWeight <= maxWeight)
+        break;
+
+      var eldestEntry = entryIterator.next();
+
+      // Never evict the entry which has just been requested
+      if (eldestEntry == entry)
+        break;
+
+      currentWeight -= eldestEntry.weight;
+      entryIterator.remove();
+      ++evictions;
+    }
+
+    return value;
+  }
+
+  public synchronized void remove(K key) {
+    var entry = entryByKey.remove(key);
+
+    if (entry != null)
+      currentWeight -= entry.weight;
+  }
+
+  public synchronized String describeStatistics() {
+    var requests = hits + misses;
+    var hitRatio = requests == 0 ? 0 : (hits * 100.0 / requests);
+
+    return String.format(
+      "%d entries, weighing %d/%d, %d hits, %d misses (%.1f%% hit-ratio), %d evictions",
+      entryByKey.size(), currentWeight, maxWeight, hits, misses, hitRatio, evictions
+    );
+  }
+}
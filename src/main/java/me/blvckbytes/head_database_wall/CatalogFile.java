@@ -0,0 +1,277 @@
+package me.blvckbytes.head_database_wall;
+
+import it.unimi.dsi.fastutil.objects.Object2IntOpenHashMap;
+import me.arcaniax.hdb.enums.CategoryEnum;
+
+import javax.annotation.Nullable;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.*;
+import java.util.*;
+import java.util.zip.CRC32;
+
+/**
+ * Compact, versioned snapshot of the catalog on disk, such that walls can be opened right after
+ * a restart, without having to wait for HeadDatabase. All strings are deduplicated into a single
+ * table, which the fixed-size head-records refer to by index. Layout, all integers big-endian:
+ *
+ * Header: magic, version, number of strings, number of heads, number of tag-references, string-bytes
+ * String-offsets: one more than there are strings, where string i spans [offset i; offset i+1)
+ * String-data: UTF-8 bytes of all strings, back to back
+ * Head-records: string-indices of id, name, textures and category-name, followed by the first tag-reference
+ * Tag-references: string-indices of all tags, where the tags of a head run up to the next head's first
+ * Trailer: CRC32 over all preceding bytes
+ */
+public class CatalogFile {
+
+  private static final int MAGIC = 0x48445743;
+  private static final int FORMAT_VERSION = 1;
+
+  private static final int HEADER_BYTES = 6 * Integer.BYTES;
+  private static final int HEAD_RECORD_BYTES = 5 * Integer.BYTES;
+  private static final int TRAILER_BYTES = Long.BYTES;
+
+  private final Path path;
+
+  public CatalogFile(Path path) {
+    this.path = path;
+  }
+
+  public boolean exists() {
+    return Files.isRegularFile(path);
+  }
+
+  /**
+   * @return All heads per category, in the order they have been written in, as unmodifiable lists,
+   *         or null if the file has been written by an incompatible version
+   * @throws IOException If the file could not be read or turned out to be corrupted
+   */
+  public @Nullable Map<CategoryEnum, List<CatalogHead>> read() throws IOException {
+    ByteBuffer buffer;
+
+    try (var channel = FileChannel.open(path, StandardOpenOption.READ)) {
+      buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+    }
+
+    if (buffer.remaining() < HEADER_BYTES + TRAILER_BYTES)
+      throw new IOException("The catalog-file is too short to hold a header");
+
+    if (buffer.getInt() != MAGIC || buffer.getInt() != FORMAT_VERSION)
+      return null;
+
+    var numberOfStrings = buffer.getInt();
+    var numberOfHeads = buffer.getInt();
+    var numberOfTagReferences = buffer.getInt();
+    var stringBytes = buffer.getInt();
+
+    if (numberOfStrings < 0 || numberOfHeads < 0 || numberOfTagReferences < 0 || stringBytes < 0)
+      throw new IOException("The catalog-file's header holds negative counts");
+
+    var expectedLength = HEADER_BYTES
+      + (numberOfStrings + 1L) * Integer.BYTES
+      + stringBytes
+      + (long) numberOfHeads * HEAD_RECORD_BYTES
+      + (long) numberOfTagReferences * Integer.BYTES
+      + TRAILER_BYTES;
+
+    if (buffer.capacity() != expectedLength)
+      throw new IOException("The catalog-file is " + buffer.capacity() + " bytes long, but its header describes " + expectedLength + " bytes");
+
+    var checksum = new CRC32();
+    checksum.update(buffer.duplicate().position(0).limit(buffer.capacity() - TRAILER_BYTES));
+
+    if (checksum.getValue() != buffer.getLong(buffer.capacity() - TRAILER_BYTES))
+      throw new IOException("The catalog-file's checksum does not match its contents");
+
+    var strings = readStrings(buffer, numberOfStrings, stringBytes);
+
+    var tagReferencesStart = buffer.position() + numberOfHeads * HEAD_RECORD_BYTES;
+    var headsByCategory = new EnumMap<CategoryEnum, List<CatalogHead>>(CategoryEnum.class);
+    var categoryByName = new HashMap<String, CategoryEnum>();
+
+    for (var category : CategoryEnum.values())
+      categoryByName.put(category.name(), category);
+
+    for (var headIndex = 0; headIndex < numberOfHeads; ++headIndex) {
+      var id = getString(strings, buffer.getInt());
+      var name = getString(strings, buffer.getInt());
+      var textures = getString(strings, buffer.getInt());
+      var categoryName = getString(strings, buffer.getInt());
+      var firstTag = buffer.getInt();
+
+      // Peeking at the next record's first tag, or at the end of all tags for the very last head
+      var endTag = headIndex == numberOfHeads - 1 ? numberOfTagReferences : buffer.getInt(buffer.position() + HEAD_RECORD_BYTES - Integer.BYTES);
+
+      if (firstTag < 0 || endTag < firstTag || endTag > numberOfTagReferences)
+        throw new IOException("The tags of head " + id + " are out of bounds");
+
+      var tags = new String[endTag - firstTag];
+
+      for (var tagIndex = 0; tagIndex < tags.length; ++tagIndex)
+        tags[tagIndex] = getString(strings, buffer.getInt(tagReferencesStart + (firstTag + tagIndex) * Integer.BYTES));
+
+      var category = categoryByName.get(categoryName);
+
+      // Categories may have been dropped by HeadDatabase in the meantime; its next load will catch up
+      if (category == null)
+        continue;
+
+      headsByCategory
+        .computeIfAbsent(category, key -> new ArrayList<>())
+        .add(new CatalogHead(id, name, textures, category, List.of(tags)));
+    }
+
+    for (var categoryEntry : headsByCategory.entrySet())
+      categoryEntry.setValue(Collections.unmodifiableList(categoryEntry.getValue()));
+
+    return headsByCategory;
+  }
+
+  private String[] readStrings(ByteBuffer buffer, int numberOfStrings, int stringBytes) throws IOException {
+    var offsets = new int[numberOfStrings + 1];
+
+    for (var offsetIndex = 0; offsetIndex < offsets.length; ++offsetIndex)
+      offsets[offsetIndex] = buffer.getInt();
+
+    // Copied in one go, as decoding straight off the mapping would go through a byte at a time
+    var data = new byte[stringBytes];
+    buffer.get(data);
+
+    var strings = new String[numberOfStrings];
+
+    for (var stringIndex = 0; stringIndex < numberOfStrings; ++stringIndex) {
+      var start = offsets[stringIndex];
+      var end = offsets[stringIndex + 1];
+
+      if (start < 0 || end < start || end > stringBytes)
+        throw new IOException("String " + stringIndex + " of the catalog-file is out of bounds");
+
+      strings[stringIndex] = new String(data, start, end - start, StandardCharsets.UTF_8);
+    }
+
+    return strings;
+  }
+
+  private String getString(String[] strings, int stringIndex) throws IOException {
+    if (stringIndex < 0 || stringIndex >= strings.length)
+      throw new IOException("String-index " + stringIndex + " of the catalog-file is out of bounds");
+
+    return strings[stringIndex];
+  }
+
+  /**
+   * Replaces the file as a whole, by writing into a sibling first, such that readers never get
+   * to see a partially written catalog.
+   */
+  public void write(Map<CategoryEnum, List<CatalogHead>> headsByCategory) throws IOException {
+    var stringIndexByString = new Object2IntOpenHashMap<String>();
+    stringIndexByString.defaultReturnValue(-1);
+
+    var encodedStrings = new ArrayList<byte[]>();
+    var stringBytes = 0L;
+
+    var numberOfHeads = 0;
+    var numberOfTagReferences = 0;
+
+    for (var categoryHeads : headsByCategory.values()) {
+      for (var head : categoryHeads) {
+        ++numberOfHeads;
+        numberOfTagReferences += head.tags().size();
+
+        for (var string : List.of(head.id(), head.name(), head.textures(), head.category().name()))
+          stringBytes += internString(string, stringIndexByString, encodedStrings);
+
+        for (var tag : head.tags())
+          stringBytes += internString(tag, stringIndexByString, encodedStrings);
+      }
+    }
+
+    var length = HEADER_BYTES
+      + (encodedStrings.size() + 1L) * Integer.BYTES
+      + stringBytes
+      + (long) numberOfHeads * HEAD_RECORD_BYTES
+      + (long) numberOfTagReferences * Integer.BYTES
+      + TRAILER_BYTES;
+
+    if (length > Integer.MAX_VALUE)
+      throw new IOException("The catalog of " + numberOfHeads + " heads exceeds the maximum file-size");
+
+    var buffer = ByteBuffer.allocate((int) length);
+
+    buffer
+      .putInt(MAGIC)
+      .putInt(FORMAT_VERSION)
+      .putInt(encodedStrings.size())
+      .putInt(numberOfHeads)
+      .putInt(numberOfTagReferences)
+      .putInt((int) stringBytes);
+
+    var offset = 0;
+
+    for (var encodedString : encodedStrings) {
+      buffer.putInt(offset);
+      offset += encodedString.length;
+    }
+
+    buffer.putInt(offset);
+
+    for (var encodedString : encodedStrings)
+      buffer.put(encodedString);
+
+    var tagReferences = new int[numberOfTagReferences];
+    var nextTagReference = 0;
+
+    for (var categoryHeads : headsByCategory.values()) {
+      for (var head : categoryHeads) {
+        buffer
+          .putInt(stringIndexByString.getInt(head.id()))
+          .putInt(stringIndexByString.getInt(head.name()))
+          .putInt(stringIndexByString.getInt(head.textures()))
+          .putInt(stringIndexByString.getInt(head.category().name()))
+          .putInt(nextTagReference);
+
+        for (var tag : head.tags())
+          tagReferences[nextTagReference++] = stringIndexByString.getInt(tag);
+      }
+    }
+
+    for (var tagReference : tagReferences)
+      buffer.putInt(tagReference);
+
+    var checksum = new CRC32();
+    checksum.update(buffer.array(), 0, buffer.position());
+    buffer.putLong(checksum.getValue());
+
+    var parent = path.toAbsolutePath().getParent();
+
+    if (parent != null)
+      Files.createDirectories(parent);
+
+    var temporaryPath = path.resolveSibling(path.getFileName() + ".tmp");
+
+    Files.write(temporaryPath, buffer.array());
+
+    try {
+      Files.move(temporaryPath, path, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+    } catch (AtomicMoveNotSupportedException e) {
+      Files.move(temporaryPath, path, StandardCopyOption.REPLACE_EXISTING);
+    }
+  }
+
+  /**
+   * @return Number of bytes the string has added to the table, which is zero if it has been known already
+   */
+  private int internString(String string, Object2IntOpenHashMap<String> stringIndexByString, List<byte[]> encodedStrings) {
+    if (stringIndexByString.getInt(string) >= 0)
+      return 0;
+
+    var encodedString = string.getBytes(StandardCharsets.UTF_8);
+
+    stringIndexByString.put(string, encodedStrings.size());
+    encodedStrings.add(encodedString);
+
+    return encodedString.length;
+  }
+}
@@ -0,0 +1,13 @@
+package me.blvckbytes.head_database_wall;
+
+import me.arcaniax.hdb.enums.CategoryEnum;
+
+import java.util.List;
+
+public record CatalogHead(
+  String id,
+  String name,
+  String textures,
+  CategoryEnum category,
+  List<String> tags
+) {}
@@ -0,0 +1,109 @@
+package me.blvckbytes.head_database_wall;
+
+import org.bukkit.Location;
+import org.bukkit.block.BlockFace;
+import org.bukkit.entity.Player;
+
+import javax.annotation.Nullable;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Renders heads as client-side item-displays within the head-layer, each accompanied by an
+ * interaction-entity for hit-testing, such that a page-flip requires no block-changes at all.
+ */
+public class DisplayWallRenderBackend implements WallRenderBackend {
+
+  private final HeadWallGeometry geometry;
+  private final HeadWallCommunicator communicator;
+
+  private final BlockFace facing;
+
+  // Never mutated after construction, as packet-threads look them up
+  private final int[] displayEntityIdBySlot;
+  private final int[] interactionEntityIdBySlot;
+
+  public DisplayWallRenderBackend(HeadWallGeometry geometry, HeadWallCommunicator communicator) {
+    this.geometry = geometry;
+    this.communicator = communicator;
+
+    this.facing = geometry.lookingFace.getOppositeFace();
+
+    var pageSize = geometry.getPageSize();
+
+    this.displayEntityIdBySlot = new int[pageSize];
+    this.interactionEntityIdBySlot = new int[pageSize];
+
+    for (var slotIndex = 0; slotIndex < pageSize; ++slotIndex) {
+      displayEntityIdBySlot[slotIndex] = communicator.allocateEntityId();
+      interactionEntityIdBySlot[slotIndex] = communicator.allocateEntityId();
+    }
+  }
+
+  @Override
+  public boolean occupiesHeadLayer() {
+    return false;
+  }
+
+  @Override
+  public int renderSlots(
+    List<Player> players, BlockChangeBatch batch,
+    @Nullable String[] texturesBySlot, int[] changedSlots, int numberOfChangedSlots,
+    boolean spawn, @Nullable Object cancellationTag
+  ) {
+    var numberOfPackets = 0;
+
+    if (!batch.isEmpty()) {
+      communicator.sendBlockChanges(players, batch);
+      numberOfPackets += batch.getNumberOfPackets();
+    }
+
+    if (spawn) {
+      for (var slotIndex = 0; slotIndex < displayEntityIdBySlot.length; ++slotIndex) {
+        var cellIndex = geometry.getHeadCellIndex(slotIndex);
+
+        communicator.spawnHeadDisplay(
+          players, displayEntityIdBySlot[slotIndex], interactionEntityIdBySlot[slotIndex],
+          geometry.getCellX(cellIndex), geometry.getCellY(cellIndex), geometry.getCellZ(cellIndex),
+          facing
+        );
+      }
+
+      // Every slot is made up of a display and an interaction
+      numberOfPackets += displayEntityIdBySlot.length * 2;
+    }
+
+    for (var changedSlotIndex = 0; changedSlotIndex < numberOfChangedSlots; ++changedSlotIndex) {
+      var slotIndex = changedSlots[changedSlotIndex];
+      communicator.updateHeadDisplay(players, displayEntityIdBySlot[slotIndex], texturesBySlot[slotIndex], cancellationTag);
+    }
+
+    return numberOfPackets + numberOfChangedSlots;
+  }
+
+  @Override
+  public void resendSlot(Player player, Location location, @Nullable String textures) {
+    throw new IllegalStateException("Displays do not occupy the head-layer, thus there's no block to resend");
+  }
+
+  @Override
+  public int despawnSlots(List<Player> players) {
+    var pageSize = displayEntityIdBySlot.length;
+    var entityIds = Arrays.copyOf(displayEntityIdBySlot, pageSize * 2);
+
+    System.arraycopy(interactionEntityIdBySlot, 0, entityIds, pageSize, pageSize);
+    communicator.destroyEntities(players, entityIds);
+
+    return 1;
+  }
+
+  @Override
+  public int findSlotByEntityId(int entityId) {
+    for (var slotIndex = 0; slotIndex < displayEntityIdBySlot.length; ++slotIndex) {
+      if (interactionEntityIdBySlot[slotIndex] == entityId || displayEntityIdBySlot[slotIndex] == entityId)
+        return slotIndex;
+    }
+
+    return -1;
+  }
+}
@@ -0,0 +1,246 @@
+package me.blvckbytes.head_database_wall;
+
+import me.arcaniax.hdb.api.DatabaseLoadEvent;
+import me.arcaniax.hdb.api.HeadDatabaseAPI;
+import me.arcaniax.hdb.enums.CategoryEnum;
+import org.bukkit.Bukkit;
+import org.bukkit.event.EventHandler;
+import org.bukkit.event.Listener;
+import org.bukkit.inventory.ItemStack;
+import org.bukkit.plugin.Plugin;
+
+import javax.annotation.Nullable;
+import java.io.File;
+import java.util.*;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * Holds immutable, consistently ordered copies of all heads known to HeadDatabase, per category,
+ * which are (re-)built off the main-thread whenever HeadDatabase (re-)loads its database, and are
+ * persisted into a catalog-file, as to be available right away on the next startup.
+ */
+public class HeadCatalog implements Listener {
+
+  private static final Comparator<CatalogHead> HEAD_ORDER = Comparator
+    // Ids are numeric for the most part, so shorter ids come first, as to keep them in natural order
+    .comparingInt((CatalogHead head) -> head.id().length())
+    .thenComparing(CatalogHead::id);
+
+  // Clicks tend to repeat on the same few heads, while every template is only a few hundred bytes
+  private static final int MAX_ITEM_TEMPLATES = 1024;
+
+  private static final String CATALOG_FILE_NAME = "catalog.bin";
+
+  private record Contents(Map<CategoryEnum, List<CatalogHead>> headsByCategory, HeadSearchIndex searchIndex) {}
+
+  private final Plugin plugin;
+  private final HeadDatabaseAPI headDatabase;
+  private final Logger logger;
+
+  // Templates are cloned before handing them out
+  private final BoundedLruCache<String, ItemStack> itemTemplateCache;
+  private final CatalogFile catalogFile;
+
+  private volatile @Nullable Contents contents;
+  private volatile boolean isHeadDatabaseLoaded;
+
+  public HeadCatalog(Plugin plugin, HeadDatabaseAPI headDatabase, Logger logger) {
+    this.plugin = plugin;
+    this.headDatabase = headDatabase;
+    this.logger = logger;
+    this.itemTemplateCache = new BoundedLruCache<>(MAX_ITEM_TEMPLATES, headDatabase::getItemHead, (headId, template) -> 1);
+    this.catalogFile = new CatalogFile(new File(plugin.getDataFolder(), CATALOG_FILE_NAME).toPath());
+  }
+
+  public boolean isLoaded() {
+    return contents != null;
+  }
+
+  /**
+   * @return All heads of the category, as an unmodifiable view which is never to change, or an
+   *         empty list if the catalog has not been loaded yet
+   */
+  public List<CatalogHead> getHeads(CategoryEnum category) {
+    var currentContents = contents;
+
+    if (currentContents == null)
+      return List.of();
+
+    return currentContents.headsByCategory.getOrDefault(category, List.of());
+  }
+
+  /**
+   * Blocks for the duration of the lookup, and is thus to be called off the main-thread. Served by the
+   * previous index while a newer one is still being built.
+   * @return All heads matching the query, best matches first, or an empty list if the catalog has
+   *         not been loaded yet
+   */
+  public List<CatalogHead> search(String query) {
+    var currentContents = contents;
+
+    if (currentContents == null)
+      return List.of();
+
+    return currentContents.searchIndex.search(query);
+  }
+
+  /**
+   * @return A fresh copy of the head's item, or null if HeadDatabase does no longer know about it
+   */
+  public @Nullable ItemStack createItem(CatalogHead head) {
+    var template = itemTemplateCache.get(head.id());
+    return template == null ? null : template.clone();
+  }
+
+  public String describeItemTemplateStatistics() {
+    return itemTemplateCache.describeStatistics();
+  }
+
+  public boolean isHeadDatabaseLoaded() {
+    return isHeadDatabaseLoaded;
+  }
+
+  /**
+   * Loads the catalog as last written to disk, followed by HeadDatabase's contents, both off the main-thread.
+   * Walls can be opened as soon as the former has been indexed, while HeadDatabase may still be loading; the
+   * latter then only has to apply differences, while searches keep being served by the former's index.
+   */
+  public void loadCatalogFileAndDatabaseAsynchronously() {
+    Bukkit.getScheduler().runTaskAsynchronously(plugin, () -> {
+      loadCatalogFile();
+      load();
+    });
+  }
+
+  // Synchronized with loads from HeadDatabase, which are never to be overwritten by the file's older contents
+  private synchronized void loadCatalogFile() {
+    if (contents != null || !catalogFile.exists())
+      return;
+
+    try {
+      var startStamp = System.nanoTime();
+      var headsByCategory = catalogFile.read();
+
+      if (headsByCategory == null) {
+        logger.info("Ignoring the catalog-file, as it has been written by an incompatible version; waiting for HeadDatabase");
+        return;
+      }
+
+      var numberOfHeads = headsByCategory.values().stream().mapToInt(List::size).sum();
+      var searchIndex = applyContents(headsByCategory);
+
+      logger.info(
+        "Loaded " + numberOfHeads + " heads from the catalog-file and indexed " + searchIndex.getNumberOfTokens() +
+        " search-tokens within " + (System.nanoTime() - startStamp) / 1_000_000 + "ms"
+      );
+    } catch (Exception e) {
+      logger.log(Level.SEVERE, "An error occurred while trying to load the catalog-file; waiting for HeadDatabase", e);
+    }
+  }
+
+  private void loadAsynchronously() {
+    Bukkit.getScheduler().runTaskAsynchronously(plugin, this::load);
+  }
+
+  @EventHandler
+  public void onDatabaseLoad(DatabaseLoadEvent event) {
+    loadAsynchronously();
+  }
+
+  // Synchronized, as load-events may overlap with the initial load, while both would write the file
+  private synchronized void load() {
+    try {
+      var startStamp = System.nanoTime();
+      var headsByCategory = new EnumMap<CategoryEnum, List<CatalogHead>>(CategoryEnum.class);
+      var numberOfHeads = 0;
+
+      // Heads which did not change are carried over as they are, such that only differences are paid for
+      var previousHeadById = new HashMap<String, CatalogHead>();
+      var changedHeadIds = new ArrayList<String>();
+      var previousContents = contents;
+
+      if (previousContents != null) {
+        for (var previousHeads : previousContents.headsByCategory.values()) {
+          for (var previousHead : previousHeads)
+            previousHeadById.put(previousHead.id(), previousHead);
+        }
+      }
+
+      for (var category : CategoryEnum.values()) {
+        var sourceHeads = headDatabase.getHeads(category);
+
+        if (sourceHeads == null)
+          continue;
+
+        var categoryHeads = new CatalogHead[sourceHeads.size()];
+        var categoryHeadsIndex = 0;
+
+        for (var sourceHead : sourceHeads) {
+          var head = new CatalogHead(
+            sourceHead.id, sourceHead.name, sourceHead.b64, category,
+            sourceHead.tags == null ? List.of() : List.copyOf(sourceHead.tags)
+          );
+
+          var previousHead = previousHeadById.remove(head.id());
+
+          if (head.equals(previousHead))
+            head = previousHead;
+          else
+            changedHeadIds.add(head.id());
+
+          categoryHeads[categoryHeadsIndex++] = head;
+        }
+
+        Arrays.sort(categoryHeads, HEAD_ORDER);
+
+        headsByCategory.put(category, Collections.unmodifiableList(Arrays.asList(categoryHeads)));
+        numberOfHeads += categoryHeads.length;
+      }
+
+      // HeadDatabase may not have finished loading yet; its load-event will trigger another attempt
+      if (numberOfHeads == 0)
+        return;
+
+      isHeadDatabaseLoaded = true;
+
+      // All previous heads which have not been carried over have been removed
+      changedHeadIds.addAll(previousHeadById.keySet());
+
+      if (previousContents != null && changedHeadIds.isEmpty()) {
+        logger.info("HeadDatabase holds the very same " + numberOfHeads + " heads as the catalog already does");
+        return;
+      }
+
+      var indexStartStamp = System.nanoTime();
+      var searchIndex = applyContents(headsByCategory);
+
+      // Only templates of heads which have been re-textured or removed are stale
+      for (var changedHeadId : changedHeadIds)
+        itemTemplateCache.remove(changedHeadId);
+
+      logger.info(
+        "Loaded " + numberOfHeads + " heads into the catalog within " + (indexStartStamp - startStamp) / 1_000_000 + "ms, " +
+        changedHeadIds.size() + " of which changed; indexed " + searchIndex.getNumberOfTokens() + " search-tokens within " +
+        (System.nanoTime() - indexStartStamp) / 1_000_000 + "ms"
+      );
+
+      catalogFile.write(headsByCategory);
+    } catch (Exception e) {
+      logger.log(Level.SEVERE, "An error occurred while trying to load the head-catalog", e);
+    }
+  }
+
+  private HeadSearchIndex applyContents(Map<CategoryEnum, List<CatalogHead>> headsByCategory) {
+    var allHeads = new ArrayList<CatalogHead>();
+
+    for (var category : CategoryEnum.values())
+      allHeads.addAll(headsByCategory.getOrDefault(category, List.of()));
+
+    var searchIndex = new HeadSearchIndex(allHeads);
+
+    contents = new Contents(headsByCategory, searchIndex);
+
+    return searchIndex;
+  }
+}
@@ -1,30 +1,61 @@
 package me.blvckbytes.head_database_wall;
 
-import me.arcaniax.hdb.api.HeadDatabaseAPI;
 import me.arcaniax.hdb.enums.CategoryEnum;
+import org.bukkit.Bukkit;
 import org.bukkit.command.Command;
 import org.bukkit.command.CommandExecutor;
 import org.bukkit.command.CommandSender;
 import org.bukkit.command.TabCompleter;
 import org.bukkit.entity.Player;
+import org.bukkit.plugin.Plugin;
 
 import java.util.Arrays;
 import java.util.List;
+import java.util.stream.Stream;
 
 public class HeadDatabaseWallCommand implements CommandExecutor, TabCompleter {
 
   private static final List<String> categoryNames = Arrays.stream(CategoryEnum.values()).map(Enum::name).toList();
 
-  private final HeadDatabaseAPI headDatabase;
+  private static final String SEARCH_ACTION = "search";
+  private static final String JOIN_ACTION = "join";
+  private static final String STATS_ACTION = "stats";
+  private static final String MODE_ACTION = "mode";
+  private static final List<String> completionNames = Stream.concat(Stream.of(SEARCH_ACTION, JOIN_ACTION, MODE_ACTION), categoryNames.stream()).toList();
+  private static final List<String> renderModeNames = Arrays.stream(HeadWallRenderMode.values()).map(mode -> mode.name().toLowerCase()).toList();
+
+  private final Plugin plugin;
+  private final HeadCatalog headCatalog;
   private final HeadWallSessionRegistry sessionRegistry;
+  private final WallMetrics metrics;
 
-  public HeadDatabaseWallCommand(HeadDatabaseAPI headDatabase, HeadWallSessionRegistry sessionRegistry) {
-    this.headDatabase = headDatabase;
+  public HeadDatabaseWallCommand(Plugin plugin, HeadCatalog headCatalog, HeadWallSessionRegistry sessionRegistry, WallMetrics metrics) {
+    this.plugin = plugin;
+    this.headCatalog = headCatalog;
     this.sessionRegistry = sessionRegistry;
+    this.metrics = metrics;
   }
 
   @Override
   public boolean onCommand(CommandSender sender, Command command, String label, String[] args) {
+    // Statistics are of interest to operators, who are not necessarily players or users of walls
+    if (args.length == 1 && args[0].equalsIgnoreCase(STATS_ACTION)) {
+      if (!PluginPermission.STATS.hasPermission(sender)) {
+        sender.sendMessage("§cYou have no permission to view statistics.");
+        return true;
+      }
+
+      var lines = metrics.describe();
+
+      // Caches are owned by the registry, and are listed right before the closing separator
+      lines.addAll(lines.size() - 1, sessionRegistry.describeCaches());
+
+      for (var line : lines)
+        sender.sendMessage(line);
+
+      return true;
+    }
+
     if (!(sender instanceof Player player)) {
       sender.sendMessage("§cThis command is only available to players");
       return true;
@@ -35,8 +66,82 @@ public class HeadDatabaseWallCommand implements CommandExecutor, TabCompleter {
       return true;
     }
 
+    if (args.length == 0) {
+      sendUsage(player, label);
+      return true;
+    }
+
+    // Joining merely shares an already open wall, thus it does not depend on the catalog
+    if (args[0].equalsIgnoreCase(JOIN_ACTION)) {
+      if (args.length != 2) {
+        sendUsage(player, label);
+        return true;
+      }
+
+      joinWall(player, args[1]);
+      return true;
+    }
+
+    if (args[0].equalsIgnoreCase(MODE_ACTION)) {
+      if (args.length == 1) {
+        player.sendMessage("§aYour head-walls are rendered as " + sessionRegistry.getRenderMode(player).name().toLowerCase() + ".");
+        return true;
+      }
+
+      if (args.length != 2) {
+        sendUsage(player, label);
+        return true;
+      }
+
+      HeadWallRenderMode renderMode;
+
+      try {
+        renderMode = HeadWallRenderMode.valueOf(args[1].toUpperCase());
+      } catch (Exception e) {
+        player.sendMessage("§cUnknown render-mode: " + args[1]);
+        return true;
+      }
+
+      sessionRegistry.setRenderMode(player, renderMode);
+      player.sendMessage("§aHead-walls you open from now on are rendered as " + renderMode.name().toLowerCase() + ".");
+      return true;
+    }
+
+    if (!headCatalog.isLoaded()) {
+      sender.sendMessage("§cThe head-catalog is still loading; please try again in a moment.");
+      return true;
+    }
+
+    if (args[0].equalsIgnoreCase(SEARCH_ACTION)) {
+      if (args.length == 1) {
+        sendUsage(player, label);
+        return true;
+      }
+
+      var query = String.join(" ", Arrays.copyOfRange(args, 1, args.length));
+
+      // Ranking tens of thousands of heads is not something the main-thread should be waiting on
+      Bukkit.getScheduler().runTaskAsynchronously(plugin, () -> {
+        var matchingHeads = headCatalog.search(query);
+
+        Bukkit.getScheduler().runTask(plugin, () -> {
+          if (!player.isOnline())
+            return;
+
+          if (matchingHeads.isEmpty()) {
+            player.sendMessage("§cNo heads matched your query: " + query);
+            return;
+          }
+
+          openWall(player, matchingHeads, "§aYour search matched " + matchingHeads.size() + " heads.");
+        });
+      });
+
+      return true;
+    }
+
     if (args.length != 1) {
-      player.sendMessage("§cUsage: /" + label + " <" + String.join(", ", categoryNames) + ">");
+      sendUsage(player, label);
       return true;
     }
 
@@ -49,35 +154,103 @@ public class HeadDatabaseWallCommand implements CommandExecutor, TabCompleter {
       return true;
     }
 
-    var targetHeads = headDatabase.getHeads(targetCategory);
+    var targetHeads = headCatalog.getHeads(targetCategory);
 
     if (targetHeads.isEmpty()) {
       sender.sendMessage("§cThe category " + targetCategory + " does not hold any heads.");
       return true;
     }
 
-    var session = sessionRegistry.createAndRegister(player, targetHeads);
+    openWall(player, targetHeads, "§aYour selected category holds " + targetHeads.size() + " heads.");
+    return true;
+  }
+
+  private void openWall(Player player, List<CatalogHead> heads, String summaryMessage) {
+    if (!sessionRegistry.doesWallFitIntoWorld(player)) {
+      player.sendMessage("§cThere's not enough room above or below you to open a head-wall here.");
+      return;
+    }
+
+    var session = sessionRegistry.createAndRegister(player, heads);
 
     if (session == null) {
       player.sendMessage("§cYou're already in an active head-wall session!");
-      return true;
+      return;
     }
 
     session.show();
 
-    sender.sendMessage("§aYour selected category holds " + targetHeads.size() + " heads.");
-    sender.sendMessage("§aShowing page 1/" + session.getNumberOfPages());
-    sender.sendMessage("§aLeft-click to request head, right-click to print infos");
-    return true;
+    player.sendMessage(summaryMessage);
+    player.sendMessage("§aShowing page 1/" + session.getNumberOfPages());
+    player.sendMessage("§aLeft-click to request head, right-click to print infos");
+  }
+
+  private void joinWall(Player player, String ownerName) {
+    var owner = Bukkit.getPlayerExact(ownerName);
+
+    if (owner == null) {
+      player.sendMessage("§cThe player " + ownerName + " is not online.");
+      return;
+    }
+
+    if (owner == player) {
+      player.sendMessage("§cYou cannot join your own head-wall session.");
+      return;
+    }
+
+    var session = sessionRegistry.getOwnedSession(owner);
+
+    if (session == null) {
+      player.sendMessage("§cThe player " + owner.getName() + " has no head-wall open.");
+      return;
+    }
+
+    if (player.getWorld() != owner.getWorld() || !sessionRegistry.isWithinRemovalDistance(session, player.getLocation())) {
+      player.sendMessage("§cYou're too far away from the head-wall of " + owner.getName() + ".");
+      return;
+    }
+
+    if (!sessionRegistry.joinAndRegister(player, session)) {
+      player.sendMessage("§cYou're already in an active head-wall session!");
+      return;
+    }
+
+    owner.sendMessage("§a" + player.getName() + " is now viewing your head-wall.");
+
+    player.sendMessage("§aYou're now viewing the head-wall of " + owner.getName() + ", currently on page " + session.getCurrentPage() + "/" + session.getNumberOfPages());
+    player.sendMessage("§aLeft-click to request head, right-click to print infos, sneak to leave");
+  }
+
+  private void sendUsage(Player player, String label) {
+    player.sendMessage("§cUsage: /" + label + " <" + String.join(", ", categoryNames) + ">");
+    player.sendMessage("§cUsage: /" + label + " " + SEARCH_ACTION + " <query>");
+    player.sendMessage("§cUsage: /" + label + " " + JOIN_ACTION + " <player>");
+    player.sendMessage("§cUsage: /" + label + " " + MODE_ACTION + " [" + String.join(", ", renderModeNames) + "]");
   }
 
   @Override
   public List<String> onTabComplete(CommandSender sender, Command command, String label, String[] args) {
-    if (!PluginPermission.USE.hasPermission(sender))
+    var mayUse = PluginPermission.USE.hasPermission(sender);
+
+    if (args.length == 1) {
+      var usageCompletions = mayUse ? completionNames.stream() : Stream.<String>empty();
+      var statsCompletions = PluginPermission.STATS.hasPermission(sender) ? Stream.of(STATS_ACTION) : Stream.<String>empty();
+
+      return Stream.concat(usageCompletions, statsCompletions).toList();
+    }
+
+    if (!mayUse)
       return List.of();
 
-    if (args.length == 1)
-      return categoryNames;
+    if (args.length == 2 && args[0].equalsIgnoreCase(JOIN_ACTION)) {
+      return Bukkit.getOnlinePlayers().stream()
+        .filter(onlinePlayer -> onlinePlayer != sender && sessionRegistry.getOwnedSession(onlinePlayer) != null)
+        .map(Player::getName)
+        .toList();
+    }
+
+    if (args.length == 2 && args[0].equalsIgnoreCase(MODE_ACTION))
+      return renderModeNames;
 
     return List.of();
   }
@@ -11,7 +11,12 @@ import java.util.logging.Level;
 
 public class HeadDatabaseWallPlugin extends JavaPlugin {
 
-  private static final long DISTANCE_REMOVAL_CHECK_PERIOD_T = 40;
+  // Enough to draw the default wall within two ticks, while spreading out 10x20 walls over a couple more
+  private static final int DEFAULT_MAX_PACKETS_PER_TICK = 64;
+  private static final int DEFAULT_MAX_BYTES_PER_TICK = 48 * 1024;
+
+  // Five minutes
+  private static final long METRICS_DUMP_INTERVAL_TICKS = 5 * 60 * 20;
 
   private ProtocolManager protocolManager;
   private HeadWallSessionRegistry sessionRegistry;
@@ -21,20 +26,34 @@ public class HeadDatabaseWallPlugin extends JavaPlugin {
     var logger = getLogger();
 
     try {
+      saveDefaultConfig();
+
       var headDatabase = new HeadDatabaseAPI();
+      var headCatalog = new HeadCatalog(this, headDatabase, logger);
+
+      // Walls may already be opened based on the catalog-file, while HeadDatabase is still loading
+      Bukkit.getServer().getPluginManager().registerEvents(headCatalog, this);
+      headCatalog.loadCatalogFileAndDatabaseAsynchronously();
 
       protocolManager = ProtocolLibrary.getProtocolManager();
-      sessionRegistry = new HeadWallSessionRegistry(this, protocolManager, logger);
-      protocolManager.addPacketListener(sessionRegistry);
 
-      Bukkit.getServer().getPluginManager().registerEvents(sessionRegistry, this);
+      var metrics = new WallMetrics();
 
-      Bukkit.getServer().getScheduler().scheduleSyncRepeatingTask(
-        this, sessionRegistry::checkSessionsForDistanceRemoval,
-        0L, DISTANCE_REMOVAL_CHECK_PERIOD_T
+      Bukkit.getServer().getScheduler().runTaskTimerAsynchronously(
+        this, () -> logger.info("Metrics: " + metrics.toJson()),
+        METRICS_DUMP_INTERVAL_TICKS, METRICS_DUMP_INTERVAL_TICKS
       );
 
-      var commandHandler = new HeadDatabaseWallCommand(headDatabase, sessionRegistry);
+      var packetScheduler = new PacketScheduler(protocolManager, logger, readPacketBudget(), metrics);
+      Bukkit.getServer().getScheduler().scheduleSyncRepeatingTask(this, packetScheduler::tick, 0L, 1L);
+
+      sessionRegistry = new HeadWallSessionRegistry(this, protocolManager, packetScheduler, headCatalog, metrics, logger);
+      protocolManager.addPacketListener(sessionRegistry);
+
+      Bukkit.getServer().getPluginManager().registerEvents(sessionRegistry, this);
+      Bukkit.getServer().getScheduler().scheduleSyncRepeatingTask(this, sessionRegistry::tickSessions, 0L, 1L);
+
+      var commandHandler = new HeadDatabaseWallCommand(this, headCatalog, sessionRegistry, metrics);
 
       Objects.requireNonNull(getCommand("headdatabasewall")).setExecutor(commandHandler);
     } catch (Exception e) {
@@ -42,6 +61,16 @@ public class HeadDatabaseWallPlugin extends JavaPlugin {
     }
   }
 
+  private PacketScheduler.Budget readPacketBudget() {
+    var config = getConfig();
+
+    // Non-positive values would degrade to a single packet per tick anyway, so state that explicitly
+    return new PacketScheduler.Budget(
+      Math.max(1, config.getInt("packet-budget.max-packets-per-tick", DEFAULT_MAX_PACKETS_PER_TICK)),
+      Math.max(1, config.getInt("packet-budget.max-bytes-per-tick", DEFAULT_MAX_BYTES_PER_TICK))
+    );
+  }
+
   @Override
   public void onDisable() {
     if (sessionRegistry != null)
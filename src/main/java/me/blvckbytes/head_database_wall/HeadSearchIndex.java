@@ -0,0 +1,253 @@
+package me.blvckbytes.head_database_wall;
+
+import it.unimi.dsi.fastutil.ints.IntArrayList;
+import it.unimi.dsi.fastutil.ints.IntArrays;
+
+import java.util.*;
+
+/**
+ * Inverted index over the names and tags of all heads, answering queries by exact-, prefix- and
+ * infix-matches of each query-term, where every term has to match for a head to be part of the result.
+ * Tokens are kept sorted, such that all tokens of a prefix form a contiguous range, while infixes are
+ * narrowed down by intersecting the trigrams of the term before verifying the few remaining tokens.
+ */
+public class HeadSearchIndex {
+
+  private static final int NGRAM_LENGTH = 3;
+
+  private static final int EXACT_MATCH_SCORE = 8;
+  private static final int PREFIX_MATCH_SCORE = 4;
+  private static final int INFIX_MATCH_SCORE = 1;
+
+  // A hit within the name is worth more than a hit within the tags
+  private static final int NAME_SCORE_MULTIPLIER = 3;
+
+  private final List<CatalogHead> heads;
+
+  private final String[] sortedTokens;
+  private final int[][] nameHeadIndicesByToken;
+  private final int[][] tagHeadIndicesByToken;
+  private final Map<String, int[]> tokenIndicesByNgram;
+
+  public HeadSearchIndex(List<CatalogHead> heads) {
+    this.heads = heads;
+
+    var nameHeadIndicesByTokenString = new HashMap<String, IntArrayList>();
+    var tagHeadIndicesByTokenString = new HashMap<String, IntArrayList>();
+
+    for (var headIndex = 0; headIndex < heads.size(); ++headIndex) {
+      var head = heads.get(headIndex);
+
+      for (var token : tokenize(head.name()))
+        addPosting(nameHeadIndicesByTokenString, token, headIndex);
+
+      for (var tag : head.tags()) {
+        for (var token : tokenize(tag))
+          addPosting(tagHeadIndicesByTokenString, token, headIndex);
+      }
+    }
+
+    var tokenSet = new HashSet<String>(nameHeadIndicesByTokenString.keySet());
+    tokenSet.addAll(tagHeadIndicesByTokenString.keySet());
+
+    this.sortedTokens = tokenSet.toArray(String[]::new);
+    Arrays.sort(sortedTokens);
+
+    this.nameHeadIndicesByToken = new int[sortedTokens.length][];
+    this.tagHeadIndicesByToken = new int[sortedTokens.length][];
+
+    var tokenIndicesByNgramList = new HashMap<String, IntArrayList>();
+
+    for (var tokenIndex = 0; tokenIndex < sortedTokens.length; ++tokenIndex) {
+      var token = sortedTokens[tokenIndex];
+
+      nameHeadIndicesByToken[tokenIndex] = toArray(nameHeadIndicesByTokenString.get(token));
+      tagHeadIndicesByToken[tokenIndex] = toArray(tagHeadIndicesByTokenString.get(token));
+
+      for (var ngramStart = 0; ngramStart + NGRAM_LENGTH <= token.length(); ++ngramStart) {
+        var postings = tokenIndicesByNgramList.computeIfAbsent(token.substring(ngramStart, ngramStart + NGRAM_LENGTH), key -> new IntArrayList());
+
+        // Tokens are visited in ascending order, so duplicates can only ever occur back to back
+        if (postings.isEmpty() || postings.getInt(postings.size() - 1) != tokenIndex)
+          postings.add(tokenIndex);
+      }
+    }
+
+    this.tokenIndicesByNgram = new HashMap<>(tokenIndicesByNgramList.size());
+
+    for (var ngramEntry : tokenIndicesByNgramList.entrySet())
+      tokenIndicesByNgram.put(ngramEntry.getKey(), ngramEntry.getValue().toIntArray());
+  }
+
+  public int getNumberOfTokens() {
+    return sortedTokens.length;
+  }
+
+  /**
+   * @return All heads matching every term of the query, ranked by descending score, where ties
+   *         retain the order of the catalog; empty if the query holds no searchable terms
+   */
+  public List<CatalogHead> search(String query) {
+    var terms = tokenize(query);
+
+    if (terms.isEmpty())
+      return List.of();
+
+    int[] totalScores = null;
+
+    for (var term : terms) {
+      var termScores = new int[heads.size()];
+
+      scoreTerm(term, termScores);
+
+      if (totalScores == null) {
+        totalScores = termScores;
+        continue;
+      }
+
+      // Heads which missed any of the terms so far remain at zero, as to be excluded
+      for (var headIndex = 0; headIndex < totalScores.length; ++headIndex) {
+        if (totalScores[headIndex] == 0 || termScores[headIndex] == 0)
+          totalScores[headIndex] = 0;
+        else
+          totalScores[headIndex] += termScores[headIndex];
+      }
+    }
+
+    var matchingHeadIndices = new IntArrayList();
+
+    for (var headIndex = 0; headIndex < totalScores.length; ++headIndex) {
+      if (totalScores[headIndex] > 0)
+        matchingHeadIndices.add(headIndex);
+    }
+
+    var finalScores = totalScores;
+    var sortedHeadIndices = matchingHeadIndices.toIntArray();
+
+    // Stable, as to keep the catalog's order among equally scored heads
+    IntArrays.stableSort(sortedHeadIndices, (a, b) -> Integer.compare(finalScores[b], finalScores[a]));
+
+    var result = new CatalogHead[sortedHeadIndices.length];
+
+    for (var resultIndex = 0; resultIndex < result.length; ++resultIndex)
+      result[resultIndex] = heads.get(sortedHeadIndices[resultIndex]);
+
+    return Collections.unmodifiableList(Arrays.asList(result));
+  }
+
+  private void scoreTerm(String term, int[] termScores) {
+    var firstPrefixIndex = lowerBound(term);
+
+    for (var tokenIndex = firstPrefixIndex; tokenIndex < sortedTokens.length; ++tokenIndex) {
+      var token = sortedTokens[tokenIndex];
+
+      if (!token.startsWith(term))
+        break;
+
+      scoreToken(tokenIndex, token.length() == term.length() ? EXACT_MATCH_SCORE : PREFIX_MATCH_SCORE, termScores);
+    }
+
+    // Infixes can only be looked up by n-grams if the term is at least as long as a single one
+    if (term.length() < NGRAM_LENGTH)
+      return;
+
+    for (var tokenIndex : findInfixCandidates(term)) {
+      var token = sortedTokens[tokenIndex];
+
+      // Prefix-matches have already been scored above
+      if (token.startsWith(term) || !token.contains(term))
+        continue;
+
+      scoreToken(tokenIndex, INFIX_MATCH_SCORE, termScores);
+    }
+  }
+
+  private int[] findInfixCandidates(String term) {
+    int[] candidates = null;
+
+    for (var ngramStart = 0; ngramStart + NGRAM_LENGTH <= term.length(); ++ngramStart) {
+      var ngramTokens = tokenIndicesByNgram.get(term.substring(ngramStart, ngramStart + NGRAM_LENGTH));
+
+      if (ngramTokens == null)
+        return new int[0];
+
+      candidates = candidates == null ? ngramTokens : intersect(candidates, ngramTokens);
+
+      if (candidates.length == 0)
+        break;
+    }
+
+    return candidates;
+  }
+
+  private void scoreToken(int tokenIndex, int matchScore, int[] termScores) {
+    for (var headIndex : nameHeadIndicesByToken[tokenIndex])
+      termScores[headIndex] = Math.max(termScores[headIndex], matchScore * NAME_SCORE_MULTIPLIER);
+
+    for (var headIndex : tagHeadIndicesByToken[tokenIndex])
+      termScores[headIndex] = Math.max(termScores[headIndex], matchScore);
+  }
+
+  private int lowerBound(String term) {
+    var index = Arrays.binarySearch(sortedTokens, term);
+    return index >= 0 ? index : -(index + 1);
+  }
+
+  private static int[] intersect(int[] a, int[] b) {
+    var result = new int[Math.min(a.length, b.length)];
+    var resultSize = 0;
+
+    for (int aIndex = 0, bIndex = 0; aIndex < a.length && bIndex < b.length;) {
+      if (a[aIndex] < b[bIndex])
+        ++aIndex;
+      else if (a[aIndex] > b[bIndex])
+        ++bIndex;
+      else {
+        result[resultSize++] = a[aIndex];
+        ++aIndex;
+        ++bIndex;
+      }
+    }
+
+    return Arrays.copyOf(result, resultSize);
+  }
+
+  private static void addPosting(Map<String, IntArrayList> postingsByToken, String token, int headIndex) {
+    var postings = postingsByToken.computeIfAbsent(token, key -> new IntArrayList());
+
+    // Heads are visited in ascending order, so duplicates can only ever occur back to back
+    if (postings.isEmpty() || postings.getInt(postings.size() - 1) != headIndex)
+      postings.add(headIndex);
+  }
+
+  private static int[] toArray(IntArrayList list) {
+    return list == null ? new int[0] : list.toIntArray();
+  }
+
+  private static List<String> tokenize(String input) {
+    var tokens = new ArrayList<String>();
+
+    if (input == null)
+      return tokens;
+
+    var tokenStart = -1;
+
+    for (var charIndex = 0; charIndex <= input.length(); ++charIndex) {
+      var isTokenChar = charIndex < input.length() && Character.isLetterOrDigit(input.charAt(charIndex));
+
+      if (isTokenChar) {
+        if (tokenStart < 0)
+          tokenStart = charIndex;
+
+        continue;
+      }
+
+      if (tokenStart >= 0) {
+        tokens.add(input.substring(tokenStart, charIndex).toLowerCase(Locale.ROOT));
+        tokenStart = -1;
+      }
+    }
+
+    return tokens;
+  }
+}
@@ -2,13 +2,74 @@ package me.blvckbytes.head_database_wall;
 
 import org.bukkit.Location;
 import org.bukkit.block.BlockFace;
+import org.bukkit.block.TileState;
 import org.bukkit.block.data.BlockData;
 import org.bukkit.entity.Player;
 
+import javax.annotation.Nullable;
+import java.util.Collection;
+
 public interface HeadWallCommunicator {
 
   void sendBlockChange(Player player, Location location, BlockData blockData);
 
+  void sendTileState(Player player, Location location, TileState tileState);
+
+  /**
+   * Resends the live state of a block outside any session, which is not covered by a snapshot;
+   * may be called from any thread, as the world is only accessed on the main-thread.
+   */
+  void resendRealBlock(Player player, Location location);
+
+  BlockData getSkullBlockData(BlockFace mountingFace);
+
   void updateBlockToTexturedSkull(Player player, BlockFace mountingFace, Location location, String base64Textures);
 
+  /**
+   * Schedules all block-changes of the batch section-wise, followed by all of its skull-textures and
+   * tile-states, as tile-entity data may only be applied after the block itself has been placed.
+   * Each packet is built only once and then shared among all of the given players. Building happens
+   * off the main-thread, in the order of calls, thus the batch is not to be mutated once handed over.
+   */
+  void sendBlockChanges(Collection<Player> players, BlockChangeBatch batch);
+
+  /**
+   * Drops all changes of previously sent batches which have not yet made it onto the network.
+   */
+  void cancelPendingChanges(Player player);
+
+  /**
+   * Drops all changes of previously sent batches carrying the given cancellation-tag which have not
+   * yet made it onto the network. Batches which are still being built are not affected and will be
+   * sent in their entirety, which keeps the client consistent, as they're applied in order.
+   * @return Whether any changes have been dropped, leaving the client in a partially updated state
+   */
+  boolean cancelPendingChanges(Player player, Object cancellationTag);
+
+  /**
+   * Runs the callback on the main-thread as soon as everything handed over for the player up until
+   * now has made it onto the network, unless it has been dropped by its cancellation-tag beforehand.
+   */
+  void runOnceSent(Player player, @Nullable Object cancellationTag, Runnable callback);
+
+  /**
+   * @return Entity-id which is unique among all client-side entities, and which will never collide with real ones
+   */
+  int allocateEntityId();
+
+  /**
+   * Schedules spawning an empty item-display at the center of the given block, facing towards the
+   * given face, as well as an interaction-entity occupying that very block, which the client will
+   * report clicks on.
+   */
+  void spawnHeadDisplay(Collection<Player> players, int displayEntityId, int interactionEntityId, int x, int y, int z, BlockFace facing);
+
+  /**
+   * Schedules replacing the item of an item-display by a head of the given textures, or by nothing if null.
+   * @param cancellationTag See {@link BlockChangeBatch#setCancellationTag(Object)}
+   */
+  void updateHeadDisplay(Collection<Player> players, int displayEntityId, @Nullable String base64Textures, @Nullable Object cancellationTag);
+
+  void destroyEntities(Collection<Player> players, int[] entityIds);
+
 }
@@ -0,0 +1,234 @@
+package me.blvckbytes.head_database_wall;
+
+import org.bukkit.block.BlockFace;
+
+/**
+ * Describes all blocks of a wall purely arithmetically, as a cuboid of cells which is spanned by
+ * columns (left to right, as seen by the viewer), rows (bottom to top) and layers (from the wall
+ * towards the viewer). Layer zero holds the wall itself, layer one the heads and the following
+ * layers make up the viewing-box, which is kept free of obstructions. Optional prefetch-layers are
+ * indexed last, but located behind the wall, counting away from it, as to be hidden from the viewer.
+ */
+public class HeadWallGeometry {
+
+  public static final int WALL_LAYER = 0;
+  public static final int HEAD_LAYER = 1;
+  public static final int FIRST_VIEWING_BOX_LAYER = 2;
+
+  private static final int NUMBER_OF_PREFETCH_LAYERS = 2;
+
+  public final BlockFace lookingFace;
+  public final int rows, columns, layers;
+  public final int firstPrefetchLayer;
+
+  // Bottom-left block of the wall
+  private final int originX, originY, originZ;
+
+  private final int columnStepX, columnStepZ;
+  private final int layerStepX, layerStepZ;
+
+  private final int bottomCenterX, bottomCenterY, bottomCenterZ;
+
+  public final int minX, minY, minZ;
+  public final int maxX, maxY, maxZ;
+
+  public HeadWallGeometry(int viewerX, int viewerY, int viewerZ, float viewerYaw, HeadWallParameters parameters) {
+    this.lookingFace = decideLookingFace(viewerYaw);
+    this.rows = parameters.rows();
+    this.columns = parameters.columns();
+
+    // Include the player's location itself, as to ensure a complete lack of obstructions
+    var viewingBoxDepth = parameters.distance() + 1;
+
+    this.firstPrefetchLayer = FIRST_VIEWING_BOX_LAYER + viewingBoxDepth;
+    this.layers = firstPrefetchLayer + (parameters.prefetchAdjacentPages() ? NUMBER_OF_PREFETCH_LAYERS : 0);
+
+    var wallDistance = parameters.distance() + 1;
+    var leftFace = decideLeftOrthogonal(lookingFace);
+    var halfWidth = columns / 2;
+
+    this.columnStepX = -leftFace.getModX();
+    this.columnStepZ = -leftFace.getModZ();
+    this.layerStepX = -lookingFace.getModX();
+    this.layerStepZ = -lookingFace.getModZ();
+
+    this.bottomCenterX = viewerX + lookingFace.getModX() * wallDistance;
+    this.bottomCenterY = viewerY;
+    this.bottomCenterZ = viewerZ + lookingFace.getModZ() * wallDistance;
+
+    this.originX = bottomCenterX + leftFace.getModX() * halfWidth;
+    this.originY = bottomCenterY;
+    this.originZ = bottomCenterZ + leftFace.getModZ() * halfWidth;
+
+    // Prefetch-layers extend the cuboid behind the wall
+    var backCornerX = originX - layerStepX * getNumberOfPrefetchLayers();
+    var backCornerZ = originZ - layerStepZ * getNumberOfPrefetchLayers();
+
+    var oppositeCornerX = originX + columnStepX * (columns - 1) + layerStepX * (firstPrefetchLayer - 1);
+    var oppositeCornerZ = originZ + columnStepZ * (columns - 1) + layerStepZ * (firstPrefetchLayer - 1);
+
+    this.minX = Math.min(backCornerX, oppositeCornerX);
+    this.minY = originY;
+    this.minZ = Math.min(backCornerZ, oppositeCornerZ);
+
+    this.maxX = Math.max(backCornerX, oppositeCornerX);
+    this.maxY = originY + rows - 1;
+    this.maxZ = Math.max(backCornerZ, oppositeCornerZ);
+  }
+
+  public int getNumberOfCells() {
+    return layers * rows * columns;
+  }
+
+  public int getPageSize() {
+    return rows * columns;
+  }
+
+  public boolean isWithinBounds(int x, int y, int z) {
+    return x >= minX && x <= maxX && y >= minY && y <= maxY && z >= minZ && z <= maxZ;
+  }
+
+  public boolean doesSectionIntersect(int sectionX, int sectionY, int sectionZ) {
+    var sectionMinX = sectionX << 4;
+    var sectionMinY = sectionY << 4;
+    var sectionMinZ = sectionZ << 4;
+
+    return (
+      sectionMinX <= maxX && sectionMinX + 15 >= minX &&
+      sectionMinY <= maxY && sectionMinY + 15 >= minY &&
+      sectionMinZ <= maxZ && sectionMinZ + 15 >= minZ
+    );
+  }
+
+  /**
+   * @return Index of the cell at the given coordinates, or -1 if they're not part of the wall
+   */
+  public int getCellIndex(int x, int y, int z) {
+    if (!isWithinBounds(x, y, z))
+      return -1;
+
+    var deltaX = x - originX;
+    var deltaZ = z - originZ;
+
+    // Both steps are axis-aligned unit-vectors, thus projecting boils down to a dot-product
+    var column = deltaX * columnStepX + deltaZ * columnStepZ;
+    var depth = deltaX * layerStepX + deltaZ * layerStepZ;
+
+    // Negative depths lie behind the wall, where -1 maps onto the first prefetch-layer
+    var layer = depth >= 0 ? depth : firstPrefetchLayer - 1 - depth;
+
+    return (layer * rows + (y - originY)) * columns + column;
+  }
+
+  public int getLayer(int cellIndex) {
+    return cellIndex / (rows * columns);
+  }
+
+  public int getCellX(int cellIndex) {
+    return originX + columnStepX * (cellIndex % columns) + layerStepX * getDepth(getLayer(cellIndex));
+  }
+
+  public int getCellY(int cellIndex) {
+    return originY + (cellIndex / columns) % rows;
+  }
+
+  public int getCellZ(int cellIndex) {
+    return originZ + columnStepZ * (cellIndex % columns) + layerStepZ * getDepth(getLayer(cellIndex));
+  }
+
+  public boolean isPrefetchLayer(int layer) {
+    return layer >= firstPrefetchLayer;
+  }
+
+  public int getNumberOfPrefetchLayers() {
+    return layers - firstPrefetchLayer;
+  }
+
+  /**
+   * @return Slot-index of the given head-layer cell, counting from top-left to bottom-right
+   */
+  public int getSlotIndex(int cellIndex) {
+    var row = (cellIndex / columns) % rows;
+    return (rows - 1 - row) * columns + (cellIndex % columns);
+  }
+
+  public int getHeadCellIndex(int slotIndex) {
+    return getSlotCellIndex(HEAD_LAYER, slotIndex);
+  }
+
+  public int getSlotCellIndex(int layer, int slotIndex) {
+    var row = rows - 1 - slotIndex / columns;
+    return (layer * rows + row) * columns + (slotIndex % columns);
+  }
+
+  public int getFirstCellIndexOfLayer(int layer) {
+    return layer * rows * columns;
+  }
+
+  public int getCenterX() {
+    return bottomCenterX;
+  }
+
+  public int getCenterY() {
+    return bottomCenterY + rows / 2;
+  }
+
+  public int getCenterZ() {
+    return bottomCenterZ;
+  }
+
+  private int getDepth(int layer) {
+    if (layer < firstPrefetchLayer)
+      return layer;
+
+    return firstPrefetchLayer - 1 - layer;
+  }
+
+  public long blockDistanceSquaredTo(int x, int y, int z) {
+    long deltaX = x - bottomCenterX;
+    long deltaY = y - bottomCenterY;
+    long deltaZ = z - bottomCenterZ;
+
+    return deltaX * deltaX + deltaY * deltaY + deltaZ * deltaZ;
+  }
+
+  private static BlockFace decideLeftOrthogonal(BlockFace face) {
+    /*
+          -N
+           ^
+           |    |
+      W <--+--> E
+      |    |
+           v
+           S-
+     */
+
+    return switch (face) {
+      case NORTH -> BlockFace.WEST;
+      case WEST -> BlockFace.SOUTH;
+      case SOUTH -> BlockFace.EAST;
+      case EAST -> BlockFace.NORTH;
+      default -> throw new IllegalStateException("Unexpected face " + face);
+    };
+  }
+
+  private static BlockFace decideLookingFace(float yaw) {
+    /*
+      [45;135] -x, WEST
+      [135;180] | [-180;-135] -z, NORTH
+      [-135;-45] +x, EAST
+      [-45;45] +z, SOUTH
+     */
+
+    if (yaw >= 45 && yaw <= 135)
+      return BlockFace.WEST;
+
+    if (yaw >= -135 && yaw <= -45)
+      return BlockFace.EAST;
+
+    if (yaw >= -45 && yaw <= 45)
+      return BlockFace.SOUTH;
+
+    return BlockFace.NORTH;
+  }
+}
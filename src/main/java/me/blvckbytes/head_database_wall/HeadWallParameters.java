@@ -10,5 +10,11 @@ public record HeadWallParameters(
   // wall, onto which heads are then mounted later on, thus not including the head-depth itself.
   int distance,
 
-  Material wallType
+  Material wallType,
+
+  // Whether to keep the heads of the previous and the next page mounted behind the wall, hidden by it,
+  // as to have the client download their textures before they're actually being navigated to.
+  boolean prefetchAdjacentPages,
+
+  HeadWallRenderMode renderMode
 ) {}
@@ -0,0 +1,22 @@
+package me.blvckbytes.head_database_wall;
+
+/**
+ * How heads are presented to the viewer. Both modes draw the wall itself as fake blocks, acting as a backdrop.
+ */
+public enum HeadWallRenderMode {
+
+  /**
+   * Heads are fake wall-skulls, textured by tile-entity data, in front of which an air-box is kept
+   * clear of obstructions. A page-flip costs a section-update per touched section plus one
+   * tile-entity packet per changed head; interactions are block-digs and -uses.
+   */
+  BLOCKS,
+
+  /**
+   * Heads are client-side item-displays in front of the wall, each with an interaction-entity for
+   * hit-testing, where the head-layer is kept clear of obstructions just like the air-box. A page-flip
+   * costs one metadata packet per changed head, but no section-updates; spawning costs two packets per
+   * slot once.
+   */
+  DISPLAY_ENTITIES,
+}
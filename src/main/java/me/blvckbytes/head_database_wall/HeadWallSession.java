@@ -1,42 +1,75 @@
 package me.blvckbytes.head_database_wall;
 
-import it.unimi.dsi.fastutil.longs.Long2ObjectAVLTreeMap;
-import it.unimi.dsi.fastutil.longs.Long2ObjectMap;
-import me.arcaniax.hdb.object.head.Head;
 import org.bukkit.Location;
 import org.bukkit.Material;
-import org.bukkit.block.BlockFace;
+import org.bukkit.World;
+import org.bukkit.block.TileState;
+import org.bukkit.block.data.BlockData;
 import org.bukkit.entity.Player;
 
 import javax.annotation.Nullable;
-import java.util.List;
-import java.util.Objects;
+import java.util.*;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.Consumer;
+import java.util.function.ObjIntConsumer;
 
 public class HeadWallSession {
 
-  @FunctionalInterface
-  private interface HeadLocationConsumer {
-    void handle(int slotIndex, LocationAndHash locationAndHash);
-  }
+  private static final int EMPTY_SLOT = -1;
+
+  // Up to four heads per second, with a little headroom for quick double-clicks
+  private static final int INTERACTION_BURST = 2;
+  private static final long INTERACTION_REFILL_MS = 250;
+
+  // Page-offsets relative to the current page, per prefetch-layer; forwards first, as it's more common
+  private static final int[] PREFETCH_PAGE_OFFSETS = { 1, -1 };
+
+  // Parts of a viewer's inventory the client may have predicted changes on, which are to be re-sent
+  public static final int RESYNC_MAIN_HAND = 1;
+  public static final int RESYNC_OFF_HAND = 2;
+  public static final int RESYNC_INVENTORY = 4;
+
+  public record PendingInteraction(Player player, int x, int y, int z, boolean wasLeft) {}
+
+  private static class Viewer {
+    final Player player;
 
-  private record LocationAndHash(Location location, long hash) {
-    LocationAndHash(Location location) {
-      this(location, fastCoordinateHash(location));
+    // Written by the viewer's packet-thread, taken by the main-thread once per tick
+    final AtomicReference<PendingInteraction> pendingInteraction;
+    final AtomicInteger pendingResyncs;
+    final TokenBucket interactionBucket;
+
+    Viewer(Player player) {
+      this.player = player;
+      this.pendingInteraction = new AtomicReference<>();
+      this.pendingResyncs = new AtomicInteger();
+      this.interactionBucket = new TokenBucket(INTERACTION_BURST, INTERACTION_REFILL_MS);
     }
   }
 
-  private final LocationAndHash[][] headGrid;
-  private final LocationAndHash[] viewingBoxLocations;
-  private final LocationAndHash[] wallLocations;
-  private final BlockFace lookingFace;
-  private final Long2ObjectMap<Head> headByLocationHash;
-  private final Long2ObjectMap<Runnable> restoreRoutineByLocationHash;
+  private final HeadWallGeometry geometry;
+  private final WallRenderBackend renderBackend;
+  private final BlockSnapshot originalBlocks;
+
+  // One bit per cell whose real update has been suppressed while guarded, as set by packet-threads
+  private final AtomicLongArray changedCellBits;
+
+  // Index into the list of heads per slot, as currently displayed on the client; EMPTY_SLOT means air.
+  // Replaced as a whole on every draw, as packet-threads read it concurrently to the main-thread updating it.
+  private volatile int[] headIndexBySlot;
 
-  public final Player viewer;
-  private final Location bottomCenter;
+  private final BlockData wallTypeBlockData;
+  private final BlockData airBlockData;
 
-  private final HeadWallParameters parameters;
-  private final List<Head> heads;
+  // The owner controls paging and closing, while all viewers, the owner included, see the very same wall
+  public final Player owner;
+  private final List<Viewer> viewers;
+  private final World world;
+
+  private final List<CatalogHead> heads;
 
   private boolean didInitializeAuxiliaryLocations;
   private boolean didDrawHeads;
@@ -44,95 +77,129 @@ public class HeadWallSession {
   private final int pageSize;
   private final int numberOfPages;
   private int currentPage;
+  private int pendingPageDelta;
+
+  // Zero while there's no page-turn pending, as to measure latency from the first scroll onward
+  private long firstPendingPageTurnNanos;
+
+  // Tags the packets of page-renders, such that a superseded render can be dropped before completing
+  private final Object pageRenderTag = new Object();
+
+  // Textures which the client has been sent already, be it on the wall or behind it, as a prefetch
+  private final Set<String> primedTextures;
+  private final List<String> inFlightPrefetchTextures;
+  private final Object prefetchTag = new Object();
+  private boolean isPrefetchComplete;
+  private boolean didPrefetch;
 
   private final HeadWallCommunicator communicator;
+  private final WallMetrics metrics;
 
   public HeadWallSession(
-    Player viewer,
-    List<Head> heads,
+    Player owner,
+    List<CatalogHead> heads,
     HeadWallParameters parameters,
-    HeadWallCommunicator communicator
+    HeadWallCommunicator communicator,
+    WallMetrics metrics
   ) {
-    this.viewer = viewer;
-    this.parameters = parameters;
+    this.owner = owner;
     this.heads = heads;
     this.communicator = communicator;
+    this.metrics = metrics;
+
+    // Iterated by packet-threads, while only rarely being mutated on the main-thread
+    this.viewers = new CopyOnWriteArrayList<>();
+    this.viewers.add(new Viewer(owner));
+
+    var ownerLocation = owner.getLocation();
 
-    this.headByLocationHash = new Long2ObjectAVLTreeMap<>();
-    this.restoreRoutineByLocationHash = new Long2ObjectAVLTreeMap<>();
+    this.world = Objects.requireNonNull(ownerLocation.getWorld());
+    this.geometry = new HeadWallGeometry(
+      ownerLocation.getBlockX(), ownerLocation.getBlockY(), ownerLocation.getBlockZ(),
+      ownerLocation.getYaw(), parameters
+    );
+
+    this.originalBlocks = BlockSnapshot.capture(world, geometry);
+    this.changedCellBits = new AtomicLongArray((geometry.getNumberOfCells() + 63) >> 6);
 
-    this.pageSize = parameters.rows() * parameters.columns();
+    this.renderBackend = switch (parameters.renderMode()) {
+      case BLOCKS -> new BlockWallRenderBackend(geometry, communicator);
+      case DISPLAY_ENTITIES -> new DisplayWallRenderBackend(geometry, communicator);
+    };
+
+    this.wallTypeBlockData = parameters.wallType().createBlockData();
+    this.airBlockData = Material.AIR.createBlockData();
+
+    this.pageSize = geometry.getPageSize();
     this.numberOfPages = Math.max(1, (heads.size() + (pageSize - 1)) / pageSize);
+    this.headIndexBySlot = makeEmptySlots();
 
-    this.headGrid = new LocationAndHash[parameters.rows()][parameters.columns()];
-    this.wallLocations = new LocationAndHash[pageSize];
+    this.primedTextures = new HashSet<>();
+    this.inFlightPrefetchTextures = new ArrayList<>();
+  }
 
-    var wallDistance = parameters.distance() + 1;
+  public boolean isOwner(Player player) {
+    return owner.getUniqueId().equals(player.getUniqueId());
+  }
 
-    // Include the player's location itself, as to ensure a complete lack of obstructions
-    var viewingBoxDepth = parameters.distance() + 1;
+  public List<Player> getViewers() {
+    var players = new ArrayList<Player>(viewers.size());
 
-    this.viewingBoxLocations = new LocationAndHash[pageSize * viewingBoxDepth];
+    for (var viewer : viewers)
+      players.add(viewer.player);
 
-    var viewerLocation = viewer.getLocation();
-    lookingFace = decideLookingFace(viewerLocation.getYaw());
-    var lookingFaceOrthogonal = decideLeftOrthogonal(lookingFace);
-    var halfWidth = parameters.columns() / 2;
+    return players;
+  }
 
-    bottomCenter = viewerLocation.add(
-      lookingFace.getModX() * wallDistance,
-      0,
-      lookingFace.getModZ() * wallDistance
-    );
+  /**
+   * Adds a further viewer to this wall, who is sent everything drawn so far right away.
+   */
+  public void addViewer(Player player) {
+    viewers.add(new Viewer(player));
 
-    var bottomLeft = bottomCenter.add(
-      lookingFaceOrthogonal.getModX() * halfWidth,
-      0,
-      lookingFaceOrthogonal.getModZ() * halfWidth
-    );
+    if (!didDrawHeads)
+      return;
 
-    var lookingFaceOrthogonalOpposite = lookingFaceOrthogonal.getOppositeFace();
-    var lookingFaceOpposite = lookingFace.getOppositeFace();
-
-    var viewingBoxLocationsIndex = 0;
-    var wallLocationsIndex = 0;
-
-    for (var rowIndex = 0; rowIndex < this.headGrid.length; ++rowIndex) {
-      var headRow = this.headGrid[rowIndex];
-
-      for (var columnIndex = 0; columnIndex < headRow.length; ++columnIndex) {
-        var currentWallLocation = bottomLeft.clone().add(
-          lookingFaceOrthogonalOpposite.getModX() * columnIndex,
-          rowIndex,
-          lookingFaceOrthogonalOpposite.getModZ() * columnIndex
-        );
-
-        var currentHeadLocation = currentWallLocation.clone().add(
-          lookingFaceOpposite.getModX(),
-          0,
-          lookingFaceOpposite.getModZ()
-        );
-
-        wallLocations[wallLocationsIndex++] = new LocationAndHash(currentWallLocation);
-        headRow[columnIndex] = new LocationAndHash(currentHeadLocation);
-
-        // Offset in [1;depth] and add one to account for the heads themselves
-        for (var depthOffset = 2; depthOffset <= viewingBoxDepth + 1; ++depthOffset) {
-          viewingBoxLocations[viewingBoxLocationsIndex++] = new LocationAndHash(
-            currentWallLocation.clone().add(
-            lookingFaceOpposite.getModX() * depthOffset,
-            0,
-            lookingFaceOpposite.getModZ() * depthOffset
-            )
-          );
-        }
-      }
+    var renderStartNanos = System.nanoTime();
+
+    var playerAsList = List.of(player);
+    var batch = new BlockChangeBatch();
+
+    batch.setFocus(geometry.getCenterX(), geometry.getCenterY(), geometry.getCenterZ());
+
+    addAuxiliaryCells(batch);
+
+    var currentHeadIndexBySlot = headIndexBySlot;
+    var texturesBySlot = new String[pageSize];
+    var allSlots = new int[pageSize];
+
+    for (var slotIndex = 0; slotIndex < pageSize; ++slotIndex) {
+      texturesBySlot[slotIndex] = getTextures(currentHeadIndexBySlot[slotIndex]);
+      allSlots[slotIndex] = slotIndex;
     }
+
+    var numberOfPackets = renderBackend.renderSlots(playerAsList, batch, texturesBySlot, allSlots, pageSize, true, null);
+
+    recordRender(WallMetrics.Render.JOIN, playerAsList, numberOfPackets, renderStartNanos, null);
+
+    // The newcomer's client has not been primed with anything yet
+    primedTextures.clear();
+    inFlightPrefetchTextures.clear();
+    isPrefetchComplete = false;
   }
 
-  private void captureRestoreRoutineAndExecute(LocationAndHash locationAndHash, Runnable routine) {
-    restoreRoutineByLocationHash.put(locationAndHash.hash, routine);
-    routine.run();
+  /**
+   * Removes a viewer other than the owner, whose client is restored to the real world.
+   */
+  public void removeViewer(Player player) {
+    if (isOwner(player))
+      throw new IllegalStateException("The owner cannot be removed as a viewer; close the session instead");
+
+    if (!viewers.removeIf(viewer -> viewer.player.getUniqueId().equals(player.getUniqueId())))
+      return;
+
+    communicator.cancelPendingChanges(player);
+    restoreFor(List.of(player));
   }
 
   public int getNumberOfPages() {
@@ -143,192 +210,499 @@ public class HeadWallSession {
     return currentPage + 1;
   }
 
-  private BlockFace decideLeftOrthogonal(BlockFace face) {
-    /*
-          -N
-           ^
-           |    |
-      W <--+--> E
-      |    |
-           v
-           S-
-     */
-
-    return switch (face) {
-      case NORTH -> BlockFace.WEST;
-      case WEST -> BlockFace.SOUTH;
-      case SOUTH -> BlockFace.EAST;
-      case EAST -> BlockFace.NORTH;
-      default -> throw new IllegalStateException("Unexpected face " + face);
-    };
+  /**
+   * Accumulates page-turns, which are only rendered on the next call to {@link #applyPendingPageTurns()}.
+   */
+  public void queuePageTurn(int delta) {
+    if (firstPendingPageTurnNanos == 0)
+      firstPendingPageTurnNanos = System.nanoTime();
+    else
+      metrics.increment(WallMetrics.Counter.SCROLLS_COALESCED);
+
+    pendingPageDelta += delta;
   }
 
-  private BlockFace decideLookingFace(float yaw) {
-    /*
-      [45;135] -x, WEST
-      [135;180] | [-180;-135] -z, NORTH
-      [-135;-45] +x, EAST
-      [-45;45] +z, SOUTH
-     */
+  /**
+   * @return Whether the current page changed and has been rendered
+   */
+  public boolean applyPendingPageTurns() {
+    var renderStartNanos = firstPendingPageTurnNanos;
+    firstPendingPageTurnNanos = 0;
+
+    if (pendingPageDelta == 0)
+      return false;
 
-    if (yaw >= 45 && yaw <= 135)
-      return BlockFace.WEST;
+    var targetPage = Math.floorMod(currentPage + pendingPageDelta, numberOfPages);
+    pendingPageDelta = 0;
 
-    if (yaw >= -135 && yaw <= -45)
-      return BlockFace.EAST;
+    if (targetPage == currentPage)
+      return false;
 
-    if (yaw >= -45 && yaw <= 45)
-      return BlockFace.SOUTH;
+    currentPage = targetPage;
 
-    return BlockFace.NORTH;
+    // The adjacent pages moved, so whatever has not been prefetched yet may not be of interest anymore
+    if (cancelPendingChangesOfAllViewers(prefetchTag))
+      inFlightPrefetchTextures.forEach(primedTextures::remove);
+
+    inFlightPrefetchTextures.clear();
+    isPrefetchComplete = false;
+
+    metrics.increment(WallMetrics.Counter.PAGE_TURNS);
+
+    render(renderStartNanos);
+    return true;
   }
 
-  public void nextPage() {
-    if (currentPage >= numberOfPages - 1)
-      this.currentPage = 0;
-    else
-      ++currentPage;
+  /**
+   * Mounts heads of the adjacent pages behind the wall, where they're hidden from the viewer, but
+   * still make the client download their textures ahead of time. To be called on idle ticks only.
+   * @param maxSkulls Maximum number of heads to send within this call
+   */
+  public void prefetchAdjacentPages(int maxSkulls) {
+    if (isPrefetchComplete || !didDrawHeads || pendingPageDelta != 0)
+      return;
+
+    // Being called while idle means that all previously queued prefetches have made it onto the network
+    inFlightPrefetchTextures.clear();
 
-    this.show();
+    var batch = new BlockChangeBatch();
+    batch.setCancellationTag(prefetchTag);
+
+    var headBlockData = communicator.getSkullBlockData(geometry.lookingFace.getOppositeFace());
+    var numberOfPrefetchLayers = Math.min(geometry.getNumberOfPrefetchLayers(), PREFETCH_PAGE_OFFSETS.length);
+
+    prefetchLoop:
+    for (var prefetchLayerIndex = 0; prefetchLayerIndex < numberOfPrefetchLayers; ++prefetchLayerIndex) {
+      var prefetchPage = Math.floorMod(currentPage + PREFETCH_PAGE_OFFSETS[prefetchLayerIndex], numberOfPages);
+
+      for (var slotIndex = 0; slotIndex < pageSize; ++slotIndex) {
+        var headIndex = prefetchPage * pageSize + slotIndex;
+
+        if (headIndex >= heads.size())
+          break;
+
+        var textures = heads.get(headIndex).textures();
+
+        if (!primedTextures.add(textures))
+          continue;
+
+        var cellIndex = geometry.getSlotCellIndex(geometry.firstPrefetchLayer + prefetchLayerIndex, slotIndex);
+
+        addCell(batch, cellIndex, headBlockData);
+        batch.addSkullTexture(geometry.getCellX(cellIndex), geometry.getCellY(cellIndex), geometry.getCellZ(cellIndex), textures);
+
+        inFlightPrefetchTextures.add(textures);
+        didPrefetch = true;
+
+        if (inFlightPrefetchTextures.size() >= maxSkulls)
+          break prefetchLoop;
+      }
+    }
+
+    if (batch.isEmpty()) {
+      isPrefetchComplete = true;
+      return;
+    }
+
+    communicator.sendBlockChanges(getViewers(), batch);
+  }
+
+  /**
+   * @return Squared distance in whole blocks between the given block and the bottom-center of the wall
+   */
+  public long blockDistanceSquaredTo(int x, int y, int z) {
+    return geometry.blockDistanceSquaredTo(x, y, z);
+  }
+
+  public @Nullable CatalogHead getHeadAtLocation(Location target) {
+    if (!world.equals(target.getWorld()))
+      return null;
+
+    var cellIndex = geometry.getCellIndex(target.getBlockX(), target.getBlockY(), target.getBlockZ());
+
+    if (cellIndex < 0 || geometry.getLayer(cellIndex) != HeadWallGeometry.HEAD_LAYER)
+      return null;
+
+    var headIndex = headIndexBySlot[geometry.getSlotIndex(cellIndex)];
+
+    if (headIndex == EMPTY_SLOT)
+      return null;
+
+    return heads.get(headIndex);
   }
 
-  public void previousPage() {
-    if (currentPage == 0)
-      this.currentPage = this.numberOfPages - 1;
+  /**
+   * Queues an interaction to be processed on the next tick, where all further interactions of
+   * the same viewer until then are coalesced into the first one; rate-limited per viewer.
+   */
+  public void queueInteraction(Player player, int x, int y, int z, boolean wasLeft) {
+    var viewer = findViewer(player);
+
+    if (viewer == null)
+      return;
+
+    // Checking first, as to not spend tokens on interactions which would be coalesced anyway
+    if (viewer.pendingInteraction.get() != null || !viewer.interactionBucket.tryConsume()) {
+      metrics.increment(WallMetrics.Counter.INTERACTIONS_DEBOUNCED);
+      return;
+    }
+
+    if (viewer.pendingInteraction.compareAndSet(null, new PendingInteraction(player, x, y, z, wasLeft)))
+      metrics.increment(WallMetrics.Counter.INTERACTIONS);
     else
-      --currentPage;
+      metrics.increment(WallMetrics.Counter.INTERACTIONS_DEBOUNCED);
+  }
+
+  /**
+   * @return Whether the entity is part of this session, in which case the interaction has been queued
+   */
+  public boolean onEntityInteract(Player player, int entityId, boolean wasLeft) {
+    var slotIndex = renderBackend.findSlotByEntityId(entityId);
 
-    this.show();
+    if (slotIndex < 0)
+      return false;
+
+    var cellIndex = geometry.getHeadCellIndex(slotIndex);
+
+    queueInteraction(player, geometry.getCellX(cellIndex), geometry.getCellY(cellIndex), geometry.getCellZ(cellIndex), wasLeft);
+    return true;
   }
 
-  public double distanceSquaredTo(Location location) {
-    if (!Objects.requireNonNull(this.bottomCenter.getWorld()).equals(location.getWorld()))
-      return -1;
+  /**
+   * Queues a resync of the given parts of the viewer's inventory, as a combination of RESYNC_*
+   * flags, to be performed on the next tick; requests until then are merged into a single one.
+   */
+  public void queueInventoryResync(Player player, int resyncs) {
+    var viewer = findViewer(player);
 
-    return bottomCenter.distanceSquared(location);
+    if (viewer != null)
+      viewer.pendingResyncs.accumulateAndGet(resyncs, (pending, requested) -> pending | requested);
   }
 
-  public @Nullable Head getHeadAtLocation(Location target) {
-    if (!Objects.requireNonNull(this.bottomCenter.getWorld()).equals(target.getWorld()))
-      return null;
+  public void drainPendingInventoryResyncs(ObjIntConsumer<Player> handler) {
+    for (var viewer : viewers) {
+      var resyncs = viewer.pendingResyncs.getAndSet(0);
 
-    return headByLocationHash.get(fastCoordinateHash(target));
+      if (resyncs != 0)
+        handler.accept(viewer.player, resyncs);
+    }
+  }
+
+  public void drainPendingInteractions(Consumer<PendingInteraction> handler) {
+    for (var viewer : viewers) {
+      var interaction = viewer.pendingInteraction.getAndSet(null);
+
+      if (interaction != null)
+        handler.accept(interaction);
+    }
+  }
+
+  public boolean doesSectionIntersectSession(int sectionX, int sectionY, int sectionZ) {
+    return geometry.doesSectionIntersect(sectionX, sectionY, sectionZ);
   }
 
   public boolean areCoordinatesPartOfSession(int x, int y, int z) {
-    return restoreRoutineByLocationHash.containsKey(fastCoordinateHash(x, y, z));
+    if (!geometry.isWithinBounds(x, y, z))
+      return false;
+
+    var cellIndex = geometry.getCellIndex(x, y, z);
+
+    return !isClearedLayer(geometry.getLayer(cellIndex)) || isObstructed(cellIndex);
+  }
+
+  /**
+   * Remembers that the server's update of the guarded block at the given coordinates has been
+   * suppressed, such that it's restored from the live world instead of from the stale snapshot.
+   */
+  public void onUpdateSuppressed(int x, int y, int z) {
+    var cellIndex = geometry.getCellIndex(x, y, z);
+
+    if (cellIndex < 0)
+      return;
+
+    var wordIndex = cellIndex >> 6;
+    var cellBit = 1L << (cellIndex & 63);
+
+    // Redstone and the like update the same cells over and over, so only write if not set already
+    if ((changedCellBits.get(wordIndex) & cellBit) == 0)
+      changedCellBits.getAndAccumulate(wordIndex, cellBit, (word, bit) -> word | bit);
   }
 
-  public void onTryBlockManipulate(Location location) {
-    var restoreRoutine = restoreRoutineByLocationHash.get(fastCoordinateHash(location));
+  private boolean didCellChange(int cellIndex) {
+    return (changedCellBits.get(cellIndex >> 6) & (1L << (cellIndex & 63))) != 0;
+  }
 
-    if (restoreRoutine != null)
-      restoreRoutine.run();
+  public void onTryBlockManipulate(Player player, Location location) {
+    var cellIndex = geometry.getCellIndex(location.getBlockX(), location.getBlockY(), location.getBlockZ());
 
     // Restore the real block, as no event will be called (see reasoning for ack)
-    else
-      communicator.sendBlockChange(viewer, location, location.getBlock().getBlockData());
+    if (cellIndex < 0) {
+      communicator.resendRealBlock(player, location);
+      return;
+    }
+
+    var layer = geometry.getLayer(cellIndex);
+
+    // Prefetched heads are only there to be downloaded, so there's no need to restore them
+    if (geometry.isPrefetchLayer(layer)) {
+      sendOriginalBlock(player, cellIndex, location);
+      return;
+    }
+
+    if (isClearedLayer(layer)) {
+      // Unobstructed cells are not guarded, so the server may have placed something there in the meantime
+      if (isObstructed(cellIndex))
+        communicator.sendBlockChange(player, location, airBlockData);
+      else
+        communicator.resendRealBlock(player, location);
+
+      return;
+    }
+
+    if (layer == HeadWallGeometry.WALL_LAYER) {
+      communicator.sendBlockChange(player, location, wallTypeBlockData);
+      return;
+    }
+
+    renderBackend.resendSlot(player, location, getTextures(headIndexBySlot[geometry.getSlotIndex(cellIndex)]));
   }
 
   public void show() {
-    if (!didInitializeAuxiliaryLocations) {
-      didInitializeAuxiliaryLocations = true;
+    render(System.nanoTime());
+  }
 
-      var wallTypeBlockData = parameters.wallType().createBlockData();
-      for (var wallLocationAndHash : wallLocations) {
-        captureRestoreRoutineAndExecute(
-          wallLocationAndHash,
-          () -> communicator.sendBlockChange(viewer, wallLocationAndHash.location, wallTypeBlockData)
-        );
-      }
+  private void render(long renderStartNanos) {
+    var batch = new BlockChangeBatch();
 
-      var airBlockData = Material.AIR.createBlockData();
-      for (var viewingBoxLocationAndHash : viewingBoxLocations) {
-        captureRestoreRoutineAndExecute(
-          viewingBoxLocationAndHash,
-          () -> communicator.sendBlockChange(viewer, viewingBoxLocationAndHash.location, airBlockData)
-        );
-      }
+    batch.setFocus(geometry.getCenterX(), geometry.getCenterY(), geometry.getCenterZ());
+
+    if (!didInitializeAuxiliaryLocations) {
+      didInitializeAuxiliaryLocations = true;
+      addAuxiliaryCells(batch);
     }
 
+    // The client's state is unknown before the first draw, thus every slot has to be sent
+    var isInitialDraw = !didDrawHeads;
     didDrawHeads = true;
 
-    forEachHeadLocationTopLeftToBottomRight((slotIndex, locationAndHash) -> {
+    // The initial draw is never superseded, as it also holds the wall itself
+    if (!isInitialDraw)
+      batch.setCancellationTag(pageRenderTag);
+
+    // If parts of a previous render were dropped, the client's state of its slots is just as unknown
+    var mustSendAllSlots = isInitialDraw || cancelPendingChangesOfAllViewers(pageRenderTag);
+
+    var previousHeadIndexBySlot = headIndexBySlot;
+    var nextHeadIndexBySlot = makeEmptySlots();
+    var texturesBySlot = new String[pageSize];
+
+    var changedSlots = new int[pageSize];
+    var numberOfChangedSlots = 0;
+
+    for (var slotIndex = 0; slotIndex < pageSize; ++slotIndex) {
       var headIndex = currentPage * pageSize + slotIndex;
 
-      if (headIndex >= heads.size()) {
-        communicator.sendBlockChange(viewer, locationAndHash.location, Material.AIR.createBlockData());
-        headByLocationHash.remove(locationAndHash.hash);
-        return;
-      }
+      if (headIndex >= heads.size())
+        headIndex = EMPTY_SLOT;
+
+      nextHeadIndexBySlot[slotIndex] = headIndex;
+
+      var currentTextures = getTextures(headIndex);
+      texturesBySlot[slotIndex] = currentTextures;
+
+      // Textures are the only visible property of a slot, so equal textures need not be resent
+      if (!mustSendAllSlots && Objects.equals(currentTextures, getTextures(previousHeadIndexBySlot[slotIndex])))
+        continue;
 
-      var currentHead = heads.get(headIndex);
+      if (currentTextures != null)
+        primedTextures.add(currentTextures);
 
-      headByLocationHash.put(locationAndHash.hash, currentHead);
+      changedSlots[numberOfChangedSlots++] = slotIndex;
+    }
+
+    headIndexBySlot = nextHeadIndexBySlot;
+
+    // Built once, no matter how many viewers are watching
+    var players = getViewers();
 
-      captureRestoreRoutineAndExecute(
-        locationAndHash,
-        () -> communicator.updateBlockToTexturedSkull(viewer, lookingFace.getOppositeFace(), locationAndHash.location, currentHead.b64)
-      );
-    });
+    var numberOfPackets = renderBackend.renderSlots(
+      players, batch, texturesBySlot, changedSlots, numberOfChangedSlots,
+      isInitialDraw, isInitialDraw ? null : pageRenderTag
+    );
+
+    recordRender(
+      isInitialDraw ? WallMetrics.Render.OPEN : WallMetrics.Render.PAGE_TURN,
+      players, numberOfPackets, renderStartNanos, isInitialDraw ? null : pageRenderTag
+    );
+  }
+
+  /**
+   * Records the number of packets a viewer is sent by the render, as well as the time until each
+   * viewer has received them, where renders which are superseded before completing are not timed.
+   */
+  private void recordRender(WallMetrics.Render render, List<Player> players, int numberOfPackets, long renderStartNanos, @Nullable Object cancellationTag) {
+    metrics.recordRenderPackets(render, numberOfPackets);
+
+    for (var player : players)
+      communicator.runOnceSent(player, cancellationTag, () -> metrics.recordRenderLatency(render, System.nanoTime() - renderStartNanos));
+  }
+
+  private void addAuxiliaryCells(BlockChangeBatch batch) {
+    var firstHeadCellIndex = geometry.getFirstCellIndexOfLayer(HeadWallGeometry.HEAD_LAYER);
+    var firstPrefetchCellIndex = geometry.getFirstCellIndexOfLayer(geometry.firstPrefetchLayer);
+
+    for (var cellIndex = 0; cellIndex < firstHeadCellIndex; ++cellIndex)
+      addCell(batch, cellIndex, wallTypeBlockData);
+
+    // Skulls as well as displays would be hidden by, or be clipping into, whatever is in front of the wall
+    for (var cellIndex = getFirstClearedCellIndex(); cellIndex < firstPrefetchCellIndex; ++cellIndex) {
+      if (isObstructed(cellIndex))
+        addCell(batch, cellIndex, airBlockData);
+    }
   }
 
   public void close() {
-    // TODO: Only sending block-data will result in a loss of block-state...
+    var players = getViewers();
+
+    // Whatever has not been drawn yet does not need to be drawn anymore
+    for (var player : players)
+      communicator.cancelPendingChanges(player);
+
+    restoreFor(players);
+
+    didInitializeAuxiliaryLocations = false;
+    didPrefetch = false;
+    didDrawHeads = false;
+    headIndexBySlot = makeEmptySlots();
+  }
+
+  private void restoreFor(List<Player> players) {
+    var batch = new BlockChangeBatch();
+    var numberOfPackets = 0;
+
+    var firstHeadCellIndex = geometry.getFirstCellIndexOfLayer(HeadWallGeometry.HEAD_LAYER);
+    var firstViewingBoxCellIndex = geometry.getFirstCellIndexOfLayer(HeadWallGeometry.FIRST_VIEWING_BOX_LAYER);
+    var firstPrefetchCellIndex = geometry.getFirstCellIndexOfLayer(geometry.firstPrefetchLayer);
 
     if (didInitializeAuxiliaryLocations) {
-      didInitializeAuxiliaryLocations = false;
+      for (var cellIndex = 0; cellIndex < firstHeadCellIndex; ++cellIndex)
+        addOriginalBlock(batch, cellIndex);
 
-      for (var wallLocationAndHash : wallLocations) {
-        var location = wallLocationAndHash.location;
-        communicator.sendBlockChange(viewer, location, location.getBlock().getBlockData());
+      for (var cellIndex = getFirstClearedCellIndex(); cellIndex < firstPrefetchCellIndex; ++cellIndex) {
+        if (isObstructed(cellIndex))
+          addOriginalBlock(batch, cellIndex);
       }
+    }
 
-      for (var viewingBoxLocationAndHash : viewingBoxLocations) {
-        var location = viewingBoxLocationAndHash.location;
-        communicator.sendBlockChange(viewer, location, location.getBlock().getBlockData());
-      }
+    if (didPrefetch) {
+      for (var cellIndex = firstPrefetchCellIndex; cellIndex < geometry.getNumberOfCells(); ++cellIndex)
+        addOriginalBlock(batch, cellIndex);
     }
 
     if (didDrawHeads) {
-      didDrawHeads = false;
+      if (renderBackend.occupiesHeadLayer()) {
+        for (var cellIndex = firstHeadCellIndex; cellIndex < firstViewingBoxCellIndex; ++cellIndex)
+          addOriginalBlock(batch, cellIndex);
+      }
 
-      forEachHeadLocationTopLeftToBottomRight((slotIndex, locationAndHash) -> {
-        var location = locationAndHash.location;
-        communicator.sendBlockChange(viewer, location, location.getBlock().getBlockData());
-      });
+      numberOfPackets += renderBackend.despawnSlots(players);
     }
+
+    communicator.sendBlockChanges(players, batch);
+
+    metrics.recordRenderPackets(WallMetrics.Render.CLOSE, numberOfPackets + batch.getNumberOfPackets());
   }
 
-  private void forEachHeadLocationTopLeftToBottomRight(HeadLocationConsumer locationConsumer) {
-    var slotIndex = 0;
+  private boolean cancelPendingChangesOfAllViewers(Object cancellationTag) {
+    var didCancelAny = false;
 
-    for (var rowIndex = this.headGrid.length - 1; rowIndex >= 0; --rowIndex) {
-      var headRow = this.headGrid[rowIndex];
+    for (var viewer : viewers)
+      didCancelAny |= communicator.cancelPendingChanges(viewer.player, cancellationTag);
 
-      for (LocationAndHash locationAndHash : headRow) {
-        locationConsumer.handle(slotIndex++, locationAndHash);
-      }
+    return didCancelAny;
+  }
+
+  private @Nullable Viewer findViewer(Player player) {
+    for (var viewer : viewers) {
+      if (viewer.player.getUniqueId().equals(player.getUniqueId()))
+        return viewer;
     }
+
+    return null;
   }
 
-  private static long fastCoordinateHash(Location location) {
-    return fastCoordinateHash(location.getBlockX(), location.getBlockY(), location.getBlockZ());
+  private @Nullable String getTextures(int headIndex) {
+    if (headIndex == EMPTY_SLOT)
+      return null;
+
+    return heads.get(headIndex).textures();
   }
 
-  private static long fastCoordinateHash(int x, int y, int z) {
-    // y in [-64;320] - adding 64 will result in [0;384], thus 9 bits will suffice
-    // long has 64 bits, (64-9)/2 = 27.5, thus, let's reserve 10 bits for y, and add 128, for future-proofing
-    // 27 bits per x/z axis, with one sign-bit, => +- 67,108,864
-    // As far as I know, the world is limited to around +- 30,000,000 - so we're fine
+  private void addCell(BlockChangeBatch batch, int cellIndex, BlockData blockData) {
+    batch.add(geometry.getCellX(cellIndex), geometry.getCellY(cellIndex), geometry.getCellZ(cellIndex), blockData);
+  }
 
-    return (
-      // 2^10 - 1 = 0x3FF
-      // 2^26 - 1 = 0x3FFFFFF
-      // 2^26     = 0x4000000
-      ((y + 128) & 0x3FF) |
-        (((x & 0x3FFFFFF) | (x < 0 ? 0x4000000L : 0)) << 10) |
-        (((z & 0x3FFFFFF) | (z < 0 ? 0x4000000L : 0)) << (10 + 27))
-    );
+  /**
+   * @return Whether the layer lies in front of the wall and is only ever cleared of obstructions, rather than faked
+   */
+  private boolean isClearedLayer(int layer) {
+    if (layer == HeadWallGeometry.HEAD_LAYER)
+      return !renderBackend.occupiesHeadLayer();
+
+    return layer >= HeadWallGeometry.FIRST_VIEWING_BOX_LAYER && !geometry.isPrefetchLayer(layer);
+  }
+
+  private int getFirstClearedCellIndex() {
+    return geometry.getFirstCellIndexOfLayer(renderBackend.occupiesHeadLayer() ? HeadWallGeometry.FIRST_VIEWING_BOX_LAYER : HeadWallGeometry.HEAD_LAYER);
+  }
+
+  /**
+   * @return Whether a cleared layer needs to be cleared at the given cell, as it's not air already
+   */
+  private boolean isObstructed(int cellIndex) {
+    return !originalBlocks.isAir(cellIndex);
+  }
+
+  private void sendOriginalBlock(Player player, int cellIndex, Location location) {
+    if (didCellChange(cellIndex)) {
+      communicator.resendRealBlock(player, location);
+      return;
+    }
+
+    communicator.sendBlockChange(player, location, originalBlocks.getBlockData(cellIndex));
+
+    var tileState = originalBlocks.getTileState(cellIndex);
+
+    if (tileState != null)
+      communicator.sendTileState(player, location, tileState);
+  }
+
+  /**
+   * Only to be called on the main-thread, as cells which changed in the meantime are read from the live world.
+   */
+  private void addOriginalBlock(BlockChangeBatch batch, int cellIndex) {
+    if (didCellChange(cellIndex)) {
+      var block = world.getBlockAt(geometry.getCellX(cellIndex), geometry.getCellY(cellIndex), geometry.getCellZ(cellIndex));
+
+      addCell(batch, cellIndex, block.getBlockData());
+
+      if (block.getState() instanceof TileState tileState)
+        batch.addTileState(tileState);
+
+      return;
+    }
+
+    addCell(batch, cellIndex, originalBlocks.getBlockData(cellIndex));
+
+    var tileState = originalBlocks.getTileState(cellIndex);
+
+    if (tileState != null)
+      batch.addTileState(tileState);
+  }
+
+  private int[] makeEmptySlots() {
+    var slots = new int[pageSize];
+    Arrays.fill(slots, EMPTY_SLOT);
+    return slots;
   }
 }
@@ -0,0 +1,194 @@
+package me.blvckbytes.head_database_wall;
+
+import org.bukkit.entity.Player;
+
+import javax.annotation.Nullable;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Keeps track of which player views which session, and decides on behalf of the packet-listeners
+ * whether a block-change sent to a player is to be filtered. Every viewer is registered by their own
+ * id, as to keep looking up the session of a player a single map-access. Lookups and filtering are
+ * safe to call from packet-threads, while registering and unregistering only happens on the main-thread.
+ */
+public class HeadWallSessionDirectory {
+
+  private final Map<UUID, HeadWallSession> sessionByPlayerId;
+
+  // Sessions which players have left, but whose restore has not been sent to them yet; until then, the
+  // server's updates of the wall are still to be filtered, as the restore would overwrite them otherwise
+  private final Map<UUID, HeadWallSession> restoringSessionByPlayerId;
+
+  public HeadWallSessionDirectory() {
+    this.sessionByPlayerId = new ConcurrentHashMap<>();
+    this.restoringSessionByPlayerId = new ConcurrentHashMap<>();
+  }
+
+  public @Nullable HeadWallSession getSession(Player player) {
+    return sessionByPlayerId.get(player.getUniqueId());
+  }
+
+  public boolean isRegistered(Player player) {
+    return sessionByPlayerId.containsKey(player.getUniqueId());
+  }
+
+  /**
+   * @return Whether block-changes sent to the player may have to be filtered
+   */
+  public boolean isFiltering(Player player) {
+    var playerId = player.getUniqueId();
+
+    // Restoring sessions are few and short-lived, so the second lookup is almost always into an empty map
+    return sessionByPlayerId.containsKey(playerId) || restoringSessionByPlayerId.containsKey(playerId);
+  }
+
+  /**
+   * Registers the player with the given session, which takes over filtering from any session the
+   * player has left, but which has not been released yet.
+   * @return False if the player is already part of a session
+   */
+  public boolean register(Player player, HeadWallSession session) {
+    var playerId = player.getUniqueId();
+
+    if (sessionByPlayerId.putIfAbsent(playerId, session) != null)
+      return false;
+
+    restoringSessionByPlayerId.remove(playerId);
+    return true;
+  }
+
+  /**
+   * Removes the player from the given session, while its cells stay guarded until the session is released.
+   * @return False if the player has not been part of the given session
+   */
+  public boolean unregister(Player player, HeadWallSession session) {
+    var playerId = player.getUniqueId();
+
+    if (sessionByPlayerId.get(playerId) != session)
+      return false;
+
+    // Put first, as to never leave a gap in which the player's changes would not be filtered
+    restoringSessionByPlayerId.put(playerId, session);
+    sessionByPlayerId.remove(playerId);
+    return true;
+  }
+
+  /**
+   * Stops guarding the cells of the given session, once its restore has been sent to the player.
+   */
+  public void release(Player player, HeadWallSession session) {
+    restoringSessionByPlayerId.remove(player.getUniqueId(), session);
+  }
+
+  /**
+   * Unregisters the player from all sessions right away, as nothing is being sent to them anymore.
+   */
+  public void forget(Player player) {
+    var playerId = player.getUniqueId();
+
+    sessionByPlayerId.remove(playerId);
+    restoringSessionByPlayerId.remove(playerId);
+  }
+
+  /**
+   * @return Each registered session once, as it's listed under every one of its viewers
+   */
+  public List<HeadWallSession> getSessions() {
+    var sessions = new ArrayList<HeadWallSession>();
+
+    for (var sessionEntry : sessionByPlayerId.entrySet()) {
+      var session = sessionEntry.getValue();
+
+      if (session.owner.getUniqueId().equals(sessionEntry.getKey()))
+        sessions.add(session);
+    }
+
+    return sessions;
+  }
+
+  /**
+   * Unregisters and releases all players from their sessions.
+   * @return Each session which has been registered, once
+   */
+  public List<HeadWallSession> unregisterAll() {
+    var sessions = getSessions();
+    sessionByPlayerId.clear();
+    restoringSessionByPlayerId.clear();
+    return sessions;
+  }
+
+  /**
+   * Decides on a single block-change, where the session is told about every suppressed update.
+   * @return Whether the block-change sent to the player is to be dropped
+   */
+  public boolean filterBlockChange(Player player, int x, int y, int z) {
+    // Called for every block-change around every player, so refrain from capturing lambdas and wrappers
+    var session = getFilteringSession(player);
+
+    if (session == null || !session.areCoordinatesPartOfSession(x, y, z))
+      return false;
+
+    session.onUpdateSuppressed(x, y, z);
+    return true;
+  }
+
+  /**
+   * @return Whether a section-update sent to the player may contain changes which are to be filtered,
+   *         as to only decode the section's contents if need be
+   */
+  public boolean doesSectionConcernSession(Player player, int sectionX, int sectionY, int sectionZ) {
+    var session = getFilteringSession(player);
+    return session != null && session.doesSectionIntersectSession(sectionX, sectionY, sectionZ);
+  }
+
+  /**
+   * Decides on all changes of a section-update, where positions are packed as the protocol does, being
+   * relative to the section. Kept positions and their indices into the update are written into the given
+   * arrays, which are to be at least as long as the update.
+   * @return Number of kept changes, which equals the update's length if nothing is to be filtered
+   */
+  public int filterSectionChanges(
+    Player player, int sectionX, int sectionY, int sectionZ,
+    short[] relativePositions, short[] keptRelativePositions, int[] keptIndices
+  ) {
+    var session = getFilteringSession(player);
+
+    if (session == null || !session.doesSectionIntersectSession(sectionX, sectionY, sectionZ))
+      return relativePositions.length;
+
+    var numberOfKeptChanges = 0;
+
+    for (var changeIndex = 0; changeIndex < relativePositions.length; ++changeIndex) {
+      var relativePosition = relativePositions[changeIndex];
+
+      var x = (sectionX << 4) | ((relativePosition >> 8) & 15);
+      var y = (sectionY << 4) | (relativePosition & 15);
+      var z = (sectionZ << 4) | ((relativePosition >> 4) & 15);
+
+      if (session.areCoordinatesPartOfSession(x, y, z)) {
+        session.onUpdateSuppressed(x, y, z);
+        continue;
+      }
+
+      keptRelativePositions[numberOfKeptChanges] = relativePosition;
+      keptIndices[numberOfKeptChanges] = changeIndex;
+      ++numberOfKeptChanges;
+    }
+
+    return numberOfKeptChanges;
+  }
+
+  private @Nullable HeadWallSession getFilteringSession(Player player) {
+    var playerId = player.getUniqueId();
+    var session = sessionByPlayerId.get(playerId);
+
+    if (session == null)
+      session = restoringSessionByPlayerId.get(playerId);
+
+    return session;
+  }
+}
@@ -4,85 +4,175 @@ import com.comphenix.protocol.PacketType;
 import com.comphenix.protocol.ProtocolManager;
 import com.comphenix.protocol.events.ListenerPriority;
 import com.comphenix.protocol.events.PacketAdapter;
+import com.comphenix.protocol.events.PacketContainer;
 import com.comphenix.protocol.events.PacketEvent;
 import com.comphenix.protocol.wrappers.BlockPosition;
 import com.comphenix.protocol.wrappers.EnumWrappers;
+import com.comphenix.protocol.utility.MinecraftReflection;
 import com.comphenix.protocol.wrappers.WrappedBlockData;
+import com.comphenix.protocol.wrappers.WrappedDataValue;
+import com.comphenix.protocol.wrappers.WrappedDataWatcher;
 import com.comphenix.protocol.wrappers.WrappedRegistrable;
 import com.comphenix.protocol.wrappers.nbt.NbtFactory;
-import me.arcaniax.hdb.object.head.Head;
 import org.bukkit.Bukkit;
 import org.bukkit.Location;
 import org.bukkit.Material;
 import org.bukkit.block.BlockFace;
+import org.bukkit.block.TileState;
 import org.bukkit.block.data.BlockData;
 import org.bukkit.block.data.Directional;
+import org.bukkit.entity.Entity;
+import org.bukkit.entity.EntityType;
 import org.bukkit.entity.Player;
 import org.bukkit.event.EventHandler;
+import org.bukkit.event.EventPriority;
 import org.bukkit.event.Listener;
 import org.bukkit.event.player.*;
+import org.bukkit.event.vehicle.VehicleMoveEvent;
+import org.bukkit.inventory.ItemStack;
+import org.bukkit.inventory.meta.SkullMeta;
 import org.bukkit.plugin.Plugin;
 
 import javax.annotation.Nullable;
-import java.lang.reflect.Field;
+import java.net.MalformedURLException;
+import java.net.URL;
+import java.nio.charset.StandardCharsets;
 import java.util.*;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
 import java.util.function.Consumer;
 import java.util.logging.Level;
 import java.util.logging.Logger;
+import java.util.regex.Pattern;
 
 public class HeadWallSessionRegistry extends PacketAdapter implements Listener, HeadWallCommunicator {
 
-  private static final long INTERACTION_MIN_DISTANCE_MS = 250; // Up to 4 heads/second will suffice, I believe, x)
-  private static final double REMOVAL_DISTANCE_BLOCKS = 10;
-  private static final double REMOVAL_DISTANCE_BLOCKS_SQUARED = REMOVAL_DISTANCE_BLOCKS * REMOVAL_DISTANCE_BLOCKS;
+  private static final int REMOVAL_DISTANCE_BLOCKS = 10;
+  private static final long REMOVAL_DISTANCE_BLOCKS_SQUARED = (long) REMOVAL_DISTANCE_BLOCKS * REMOVAL_DISTANCE_BLOCKS;
 
-  private static final HeadWallParameters WALL_PARAMETER = new HeadWallParameters(5, 8, 3, Material.COAL_BLOCK);
+  // Roughly 10-20KiB/s per viewer, at about 0.5-1KiB per skull-texture packet
+  private static final int PREFETCH_SKULLS_PER_IDLE_TICK = 1;
 
-  private final Map<UUID, HeadWallSession> sessionByPlayerId;
+  // Five rows of eight heads, three blocks in front of the viewer, mounted onto coal-blocks
+  private static final int WALL_ROWS = 5;
+  private static final int WALL_COLUMNS = 8;
+  private static final int WALL_DISTANCE = 3;
+  private static final Material WALL_TYPE = Material.COAL_BLOCK;
+  private static final boolean WALL_PREFETCHES_ADJACENT_PAGES = true;
+
+  // Skulls are what the wall has always been made of; displays are opted into per player
+  private static final HeadWallRenderMode DEFAULT_RENDER_MODE = HeadWallRenderMode.BLOCKS;
+
+  // Rough sizes of the packets on the wire, used to pace sending; textures are added on top
+  static final int BLOCK_CHANGE_BYTES = 12;
+  static final int SECTION_CHANGE_BASE_BYTES = 12;
+  static final int SECTION_CHANGE_ENTRY_BYTES = 5;
+  static final int SKULL_TEXTURE_BASE_BYTES = 48;
+  static final int ENTITY_SPAWN_BYTES = 56;
+  static final int ENTITY_METADATA_BASE_BYTES = 96;
+  static final int ENTITY_DESTROY_BASE_BYTES = 4;
+  static final int ENTITY_DESTROY_ENTRY_BYTES = 5;
+
+  // Metadata-indices of the item-display, as of 1.21.1
+  private static final int ITEM_DISPLAY_ITEM_INDEX = 23;
+  private static final int ITEM_DISPLAY_CONTEXT_INDEX = 24;
+  private static final byte ITEM_DISPLAY_CONTEXT_FIXED = 8;
+
+  private static final Pattern SKIN_URL_PATTERN = Pattern.compile("\"url\"\\s*:\\s*\"([^\"]+)\"");
+
+  // A few thousand textures will comfortably fit, which covers even the largest categories
+  private static final long SKULL_TEXTURE_CACHE_MAX_BYTES = 8 * 1024 * 1024;
+
+  // Rough per-entry overhead of the map-node, the packet-container and the NBT-tree, excluding the texture-string
+  private static final int SKULL_TEXTURE_ENTRY_OVERHEAD_BYTES = 512;
+
+  // Restores of all walls are usually encoded within milliseconds; this only guards against hanging the shutdown
+  private static final long ENCODER_SHUTDOWN_TIMEOUT_SECONDS = 5;
+
+  // At least a few pages worth of display-items, as to make flipping back and forth cheap
+  private static final int DISPLAY_ITEM_CACHE_MAX_ENTRIES = 2048;
+
+  private final HeadWallSessionDirectory sessionDirectory;
+
+  // Only accessed on the main-thread; applies to walls opened afterwards, until the player quits
+  private final Map<UUID, HeadWallRenderMode> renderModeByPlayerId;
 
   private final ProtocolManager protocolManager;
+  private final PacketScheduler packetScheduler;
+  private final HeadCatalog headCatalog;
+  private final WallMetrics metrics;
   private final Logger logger;
 
-  private long lastProcessedInteractionStamp;
-  private final Field blockDataHandleField;
+  private final BlockDataConverter blockDataConverter;
+  private final BlockPositionAccessor blockPositionAccessor;
 
-  public HeadWallSessionRegistry(Plugin plugin, ProtocolManager protocolManager, Logger logger) throws Exception {
+  // Templates are shallow-cloned before writing the target block-position into them
+  private final BoundedLruCache<String, PacketContainer> skullTextureCache;
+
+  // Only ever accessed by the packet-encoder; the items are copied when being written into packets
+  private final BoundedLruCache<String, ItemStack> displayItemCache;
+
+  // Packets are built off the main-thread, on a single thread only, as to retain the order of batches
+  private final ExecutorService packetEncoder;
+
+  // Counting downwards from the very top, as the server counts upwards from zero
+  private final AtomicInteger nextEntityId;
+  private final Map<BlockFace, BlockData> skullBlockDataByMountingFace;
+
+  public HeadWallSessionRegistry(
+    Plugin plugin,
+    ProtocolManager protocolManager,
+    PacketScheduler packetScheduler,
+    HeadCatalog headCatalog,
+    WallMetrics metrics,
+    Logger logger
+  ) throws Exception {
     super(
       plugin, ListenerPriority.HIGHEST,
       PacketType.Play.Client.BLOCK_DIG,
       PacketType.Play.Client.USE_ITEM_ON,
       PacketType.Play.Client.USE_ITEM,
+      PacketType.Play.Client.USE_ENTITY,
 
       // Blocking all packets this listener is filtering for when in a session, as to avoid
       // unintentional updates due to events on the server, caused externally.
       PacketType.Play.Server.BLOCK_CHANGE,
-      PacketType.Play.Server.TILE_ENTITY_DATA
-      // TODO: A MULTI_BLOCK_CHANGE could cause block-changes within a session, but that's a bit more
-      //       involved to get right, as the packet would need to have it's contents patched
-    );
+      PacketType.Play.Server.TILE_ENTITY_DATA,
 
-    var blockDataClass = Class.forName(Bukkit.getServer().getClass().getPackageName() + ".block.data.CraftBlockData");
-
-    Field handleField = null;
+      // Section-updates are patched instead, as they usually also contain changes outside the session
+      PacketType.Play.Server.MULTI_BLOCK_CHANGE
+    );
 
-    for (var field : blockDataClass.getDeclaredFields()) {
-      if (!field.getType().getPackageName().startsWith("net.minecraft"))
-        continue;
+    this.blockDataConverter = new BlockDataConverter();
+    this.blockPositionAccessor = new BlockPositionAccessor();
+    this.skullTextureCache = new BoundedLruCache<>(
+      SKULL_TEXTURE_CACHE_MAX_BYTES, this::createSkullTextureTemplate,
+      (base64Textures, template) -> SKULL_TEXTURE_ENTRY_OVERHEAD_BYTES + base64Textures.length() * 2
+    );
+    this.displayItemCache = new BoundedLruCache<>(DISPLAY_ITEM_CACHE_MAX_ENTRIES, this::createHeadItem, (base64Textures, item) -> 1);
+    this.nextEntityId = new AtomicInteger(Integer.MAX_VALUE);
 
-      if (handleField != null)
-        throw new IllegalStateException("Found multiple candidates for the handle-field within " + blockDataClass);
+    this.packetEncoder = Executors.newSingleThreadExecutor(runnable -> {
+      var thread = new Thread(runnable, "HeadDatabaseWall-PacketEncoder");
+      thread.setDaemon(true);
+      return thread;
+    });
+    this.skullBlockDataByMountingFace = new EnumMap<>(BlockFace.class);
 
-      handleField = field;
+    for (var mountingFace : new BlockFace[] { BlockFace.NORTH, BlockFace.EAST, BlockFace.SOUTH, BlockFace.WEST }) {
+      var headBlockData = Material.PLAYER_WALL_HEAD.createBlockData();
+      ((Directional) headBlockData).setFacing(mountingFace);
+      skullBlockDataByMountingFace.put(mountingFace, headBlockData);
     }
 
-    if (handleField == null)
-      throw new IllegalStateException("Could not locate the handle-field within " + blockDataClass);
-
-    this.blockDataHandleField = handleField;
-    this.blockDataHandleField.setAccessible(true);
-
-    this.sessionByPlayerId = new HashMap<>();
+    this.sessionDirectory = new HeadWallSessionDirectory();
+    this.renderModeByPlayerId = new HashMap<>();
     this.protocolManager = protocolManager;
+    this.packetScheduler = packetScheduler;
+    this.headCatalog = headCatalog;
+    this.metrics = metrics;
     this.logger = logger;
   }
 
@@ -103,45 +193,291 @@ public class HeadWallSessionRegistry extends PacketAdapter implements Listener,
     }
   }
 
+  @Override
+  public void sendTileState(Player player, Location location, TileState tileState) {
+    try {
+      player.sendBlockUpdate(location, tileState);
+    } catch (Exception e) {
+      logger.log(Level.SEVERE, "An error occurred while trying to send a tile-state", e);
+    }
+  }
+
+  @Override
+  public void resendRealBlock(Player player, Location location) {
+    Bukkit.getScheduler().runTask(getPlugin(), () -> {
+      var block = location.getBlock();
+
+      sendBlockChange(player, location, block.getBlockData());
+
+      if (block.getState() instanceof TileState tileState)
+        sendTileState(player, location, tileState);
+    });
+  }
+
   @Override
   public void updateBlockToTexturedSkull(Player player, BlockFace mountingFace, Location location, String base64Textures) {
     try {
-      var headBlockData = Material.PLAYER_WALL_HEAD.createBlockData();
-      ((Directional) headBlockData).setFacing(mountingFace);
+      sendBlockChange(player, location, getSkullBlockData(mountingFace));
+      sendSkullTexture(player, location.getBlockX(), location.getBlockY(), location.getBlockZ(), base64Textures);
+    } catch (Exception e) {
+      logger.log(Level.SEVERE, "An error occurred while trying to update a fake-block to a textured skull", e);
+    }
+  }
 
-      var packet = protocolManager.createPacket(PacketType.Play.Server.TILE_ENTITY_DATA);
+  @Override
+  public void sendBlockChanges(Collection<Player> players, BlockChangeBatch batch) {
+    packetEncoder.execute(() -> encodeBlockChanges(players, batch));
+  }
 
-      packet.getBlockPositionModifier().write(0, new BlockPosition(
-        location.getBlockX(),
-        location.getBlockY(),
-        location.getBlockZ()
+  private void encodeBlockChanges(Collection<Player> players, BlockChangeBatch batch) {
+    try {
+      var cancellationTag = batch.getCancellationTag();
+
+      for (var sectionChanges : batch.getSectionChanges()) {
+        var numberOfChanges = sectionChanges.size();
+
+        // There's no point in wrapping a single change into a section-update
+        if (numberOfChanges == 1) {
+          var packet = protocolManager.createPacket(PacketType.Play.Server.BLOCK_CHANGE);
+
+          packet.getBlockPositionModifier().write(0, new BlockPosition(
+            sectionChanges.getAbsoluteX(0), sectionChanges.getAbsoluteY(0), sectionChanges.getAbsoluteZ(0)
+          ));
+
+          packet.getBlockData().write(0, convertBlockData(sectionChanges.getBlockData(0)));
+          enqueueForAll(players, packet, BLOCK_CHANGE_BYTES, cancellationTag);
+          continue;
+        }
+
+        var relativePositions = new short[numberOfChanges];
+        var blockData = new WrappedBlockData[numberOfChanges];
+
+        for (var changeIndex = 0; changeIndex < numberOfChanges; ++changeIndex) {
+          relativePositions[changeIndex] = sectionChanges.getRelativePosition(changeIndex);
+          blockData[changeIndex] = convertBlockData(sectionChanges.getBlockData(changeIndex));
+        }
+
+        var packet = protocolManager.createPacket(PacketType.Play.Server.MULTI_BLOCK_CHANGE);
+
+        packet.getSectionPositions().write(0, new BlockPosition(
+          sectionChanges.sectionX, sectionChanges.sectionY, sectionChanges.sectionZ
+        ));
+
+        packet.getShortArrays().write(0, relativePositions);
+        packet.getBlockDataArrays().write(0, blockData);
+
+        enqueueForAll(players, packet, SECTION_CHANGE_BASE_BYTES + numberOfChanges * SECTION_CHANGE_ENTRY_BYTES, cancellationTag);
+      }
+
+      for (var skullTexture : batch.getSkullTextures()) {
+        var base64Textures = skullTexture.base64Textures();
+        var packet = makeSkullTexturePacket(skullTexture.x(), skullTexture.y(), skullTexture.z(), base64Textures);
+        enqueueForAll(players, packet, SKULL_TEXTURE_BASE_BYTES + base64Textures.length(), cancellationTag);
+      }
+
+      // Tile-states are rare and cannot be built as packets up-front, thus send them right after the packets before
+      var tileStates = batch.getTileStates();
+
+      if (!tileStates.isEmpty()) {
+        var tileStatesCopy = new ArrayList<>(tileStates);
+
+        for (var player : players)
+          packetScheduler.enqueueCallback(player, cancellationTag, () -> sendTileStates(player, tileStatesCopy));
+      }
+    } catch (Exception e) {
+      logger.log(Level.SEVERE, "An error occurred while trying to send a batch of fake-block changes", e);
+    }
+  }
+
+  /**
+   * Enqueues the very same packet-instance for every player, as packets are only read, but never
+   * mutated while being written, which spares encoding the same content once per viewer.
+   */
+  private void enqueueForAll(Collection<Player> players, PacketContainer packet, int estimatedBytes, @Nullable Object cancellationTag) {
+    for (var player : players)
+      packetScheduler.enqueue(player, packet, estimatedBytes, cancellationTag);
+  }
+
+  @Override
+  public BlockData getSkullBlockData(BlockFace mountingFace) {
+    var headBlockData = skullBlockDataByMountingFace.get(mountingFace);
+
+    if (headBlockData == null)
+      throw new IllegalArgumentException("Unsupported mounting-face " + mountingFace);
+
+    return headBlockData;
+  }
+
+  @Override
+  public void cancelPendingChanges(Player player) {
+    packetScheduler.cancel(player);
+  }
+
+  @Override
+  public boolean cancelPendingChanges(Player player, Object cancellationTag) {
+    return packetScheduler.cancel(player, cancellationTag) > 0;
+  }
+
+  @Override
+  public void runOnceSent(Player player, @Nullable Object cancellationTag, Runnable callback) {
+    // Passing through the encoder, as to be queued up behind all packets handed over before
+    packetEncoder.execute(() -> packetScheduler.enqueueCallback(player, cancellationTag, callback));
+  }
+
+  @Override
+  public int allocateEntityId() {
+    return nextEntityId.getAndDecrement();
+  }
+
+  @Override
+  public void spawnHeadDisplay(Collection<Player> players, int displayEntityId, int interactionEntityId, int x, int y, int z, BlockFace facing) {
+    packetEncoder.execute(() -> encodeHeadDisplaySpawn(players, displayEntityId, interactionEntityId, x, y, z, facing));
+  }
+
+  private void encodeHeadDisplaySpawn(Collection<Player> players, int displayEntityId, int interactionEntityId, int x, int y, int z, BlockFace facing) {
+    try {
+      var yaw = switch (facing) {
+        case SOUTH -> 0;
+        case WEST -> 90;
+        case NORTH -> 180;
+        default -> -90;
+      };
+
+      enqueueForAll(players, makeEntitySpawnPacket(displayEntityId, EntityType.ITEM_DISPLAY, x + .5, y + .5, z + .5, yaw), ENTITY_SPAWN_BYTES, null);
+
+      // Interactions are anchored at their bottom-center and occupy exactly one block by default
+      enqueueForAll(players, makeEntitySpawnPacket(interactionEntityId, EntityType.INTERACTION, x + .5, y, z + .5, yaw), ENTITY_SPAWN_BYTES, null);
+    } catch (Exception e) {
+      logger.log(Level.SEVERE, "An error occurred while trying to spawn a head-display", e);
+    }
+  }
+
+  @Override
+  public void updateHeadDisplay(Collection<Player> players, int displayEntityId, @Nullable String base64Textures, @Nullable Object cancellationTag) {
+    packetEncoder.execute(() -> encodeHeadDisplayUpdate(players, displayEntityId, base64Textures, cancellationTag));
+  }
+
+  private void encodeHeadDisplayUpdate(Collection<Player> players, int displayEntityId, @Nullable String base64Textures, @Nullable Object cancellationTag) {
+    try {
+      var item = base64Textures == null ? new ItemStack(Material.AIR) : displayItemCache.get(base64Textures);
+      var packet = protocolManager.createPacket(PacketType.Play.Server.ENTITY_METADATA);
+
+      packet.getIntegers().write(0, displayEntityId);
+      packet.getDataValueCollectionModifier().write(0, List.of(
+        new WrappedDataValue(ITEM_DISPLAY_ITEM_INDEX, WrappedDataWatcher.Registry.getItemStackSerializer(false), MinecraftReflection.getMinecraftItemStack(item)),
+        new WrappedDataValue(ITEM_DISPLAY_CONTEXT_INDEX, WrappedDataWatcher.Registry.get(Byte.class), ITEM_DISPLAY_CONTEXT_FIXED)
       ));
 
-      packet.getBlockEntityTypeModifier().write(0, WrappedRegistrable.blockEntityType("skull"));
-
-      var rootCompound = NbtFactory.ofCompound("")
-        .put(
-          NbtFactory.ofCompound("profile")
-            .put("name", "HeadDatabase")
-            .put(NbtFactory.ofList(
-              "properties",
-              NbtFactory.ofCompound("")
-                .put("name", "textures")
-                .put("value", base64Textures)
-            ))
-        );
+      var texturesLength = base64Textures == null ? 0 : base64Textures.length();
 
-      packet.getNbtModifier().write(0, rootCompound);
-      sendBlockChange(player, location, headBlockData);
-      protocolManager.sendServerPacket(player, packet, false);
+      enqueueForAll(players, packet, ENTITY_METADATA_BASE_BYTES + texturesLength, cancellationTag);
     } catch (Exception e) {
-      logger.log(Level.SEVERE, "An error occurred while trying to update a fake-block to a textured skull", e);
+      logger.log(Level.SEVERE, "An error occurred while trying to update a head-display", e);
     }
   }
 
+  @Override
+  public void destroyEntities(Collection<Player> players, int[] entityIds) {
+    packetEncoder.execute(() -> encodeEntityDestruction(players, entityIds));
+  }
+
+  private void encodeEntityDestruction(Collection<Player> players, int[] entityIds) {
+    try {
+      var packet = protocolManager.createPacket(PacketType.Play.Server.ENTITY_DESTROY);
+      packet.getIntLists().write(0, Arrays.stream(entityIds).boxed().toList());
+      enqueueForAll(players, packet, ENTITY_DESTROY_BASE_BYTES + entityIds.length * ENTITY_DESTROY_ENTRY_BYTES, null);
+    } catch (Exception e) {
+      logger.log(Level.SEVERE, "An error occurred while trying to destroy client-side entities", e);
+    }
+  }
+
+  private PacketContainer makeEntitySpawnPacket(int entityId, EntityType type, double x, double y, double z, float yaw) {
+    var packet = protocolManager.createPacket(PacketType.Play.Server.SPAWN_ENTITY);
+
+    packet.getIntegers().write(0, entityId);
+    packet.getUUIDs().write(0, UUID.randomUUID());
+    packet.getEntityTypeModifier().write(0, type);
+
+    packet.getDoubles()
+      .write(0, x)
+      .write(1, y)
+      .write(2, z);
+
+    // Pitch, yaw and head-yaw, in 256ths of a full turn
+    packet.getBytes().write(1, (byte) (yaw * 256 / 360));
+
+    return packet;
+  }
+
+  private ItemStack createHeadItem(String base64Textures) {
+    var decodedTextures = new String(Base64.getDecoder().decode(base64Textures), StandardCharsets.UTF_8);
+    var urlMatcher = SKIN_URL_PATTERN.matcher(decodedTextures);
+
+    if (!urlMatcher.find())
+      throw new IllegalStateException("Could not locate the skin-url within textures " + base64Textures);
+
+    // Deriving the id from the textures keeps the profile stable across page-flips
+    var profile = Bukkit.createPlayerProfile(UUID.nameUUIDFromBytes(base64Textures.getBytes(StandardCharsets.UTF_8)));
+    var textures = profile.getTextures();
+
+    try {
+      textures.setSkin(new URL(urlMatcher.group(1)));
+    } catch (MalformedURLException e) {
+      throw new IllegalStateException("Encountered a malformed skin-url within textures " + base64Textures, e);
+    }
+
+    profile.setTextures(textures);
+
+    var item = new ItemStack(Material.PLAYER_HEAD);
+    var skullMeta = (SkullMeta) Objects.requireNonNull(item.getItemMeta());
+    skullMeta.setOwnerProfile(profile);
+    item.setItemMeta(skullMeta);
+
+    return item;
+  }
+
+  private void sendTileStates(Player player, List<TileState> tileStates) {
+    if (!player.isOnline())
+      return;
+
+    for (var tileState : tileStates)
+      sendTileState(player, tileState.getLocation(), tileState);
+  }
+
+  private void sendSkullTexture(Player player, int x, int y, int z, String base64Textures) {
+    protocolManager.sendServerPacket(player, makeSkullTexturePacket(x, y, z, base64Textures), false);
+  }
+
+  private PacketContainer makeSkullTexturePacket(int x, int y, int z, String base64Textures) {
+    var packet = Objects.requireNonNull(skullTextureCache.get(base64Textures)).shallowClone();
+    packet.getBlockPositionModifier().write(0, new BlockPosition(x, y, z));
+    return packet;
+  }
+
+  private PacketContainer createSkullTextureTemplate(String base64Textures) {
+    var packet = protocolManager.createPacket(PacketType.Play.Server.TILE_ENTITY_DATA);
+
+    packet.getBlockEntityTypeModifier().write(0, WrappedRegistrable.blockEntityType("skull"));
+
+    var rootCompound = NbtFactory.ofCompound("")
+      .put(
+        NbtFactory.ofCompound("profile")
+          .put("name", "HeadDatabase")
+          .put(NbtFactory.ofList(
+            "properties",
+            NbtFactory.ofCompound("")
+              .put("name", "textures")
+              .put("value", base64Textures)
+          ))
+      );
+
+    packet.getNbtModifier().write(0, rootCompound);
+    return packet;
+  }
+
   public WrappedBlockData convertBlockData(BlockData blockData) {
     try {
-      return WrappedBlockData.fromHandle(blockDataHandleField.get(blockData));
+      return blockDataConverter.convert(blockData);
     } catch (Exception e) {
       logger.log(Level.SEVERE, "An error occurred while trying to convert NMS block-data to a ProtocolLib-wrapped instance", e);
       // Rather fail safely, as these changes are only fake on the client-side anyway
@@ -152,22 +488,96 @@ public class HeadWallSessionRegistry extends PacketAdapter implements Listener,
   @Override
   public void onPacketSending(PacketEvent event) {
     try {
-      tryAccessSession(event.getPlayer(), session -> {
-        var position = event.getPacket().getBlockPositionModifier().read(0);
+      // Called for every block-change around every player, so refrain from capturing lambdas and wrappers
+      var player = event.getPlayer();
 
-        if (session.areCoordinatesPartOfSession(position.getX(), position.getY(), position.getZ()))
-          event.setCancelled(true);
-      });
+      if (player == null || !sessionDirectory.isFiltering(player))
+        return;
+
+      if (event.getPacketType() == PacketType.Play.Server.MULTI_BLOCK_CHANGE) {
+        patchSectionBlocksUpdate(event, player);
+        return;
+      }
+
+      var positionHandle = blockPositionAccessor.readHandle(event.getPacket());
+
+      var x = blockPositionAccessor.getX(positionHandle);
+      var y = blockPositionAccessor.getY(positionHandle);
+      var z = blockPositionAccessor.getZ(positionHandle);
+
+      if (sessionDirectory.filterBlockChange(player, x, y, z)) {
+        event.setCancelled(true);
+        metrics.increment(WallMetrics.Counter.BLOCK_CHANGES_FILTERED);
+      }
     } catch (Exception e) {
       logger.log(Level.SEVERE, "An error occurred while trying to handle a sent packet", e);
     }
   }
 
+  private void patchSectionBlocksUpdate(PacketEvent event, Player player) {
+    var packet = event.getPacket();
+    var sectionPosition = packet.getSectionPositions().read(0);
+
+    var sectionX = sectionPosition.getX();
+    var sectionY = sectionPosition.getY();
+    var sectionZ = sectionPosition.getZ();
+
+    // Most section-updates will not even come close to the session, so only then decode the contents
+    if (!sessionDirectory.doesSectionConcernSession(player, sectionX, sectionY, sectionZ))
+      return;
+
+    var relativePositions = packet.getShortArrays().read(0);
+    var keptRelativePositions = new short[relativePositions.length];
+    var keptIndices = new int[relativePositions.length];
+
+    var numberOfKeptChanges = sessionDirectory.filterSectionChanges(
+      player, sectionX, sectionY, sectionZ,
+      relativePositions, keptRelativePositions, keptIndices
+    );
+
+    if (numberOfKeptChanges == relativePositions.length)
+      return;
+
+    metrics.add(WallMetrics.Counter.BLOCK_CHANGES_FILTERED, relativePositions.length - numberOfKeptChanges);
+    metrics.increment(WallMetrics.Counter.SECTION_UPDATES_PATCHED);
+
+    if (numberOfKeptChanges == 0) {
+      event.setCancelled(true);
+      return;
+    }
+
+    var blockData = packet.getBlockDataArrays().read(0);
+    var keptBlockData = new WrappedBlockData[numberOfKeptChanges];
+
+    for (var keptIndex = 0; keptIndex < numberOfKeptChanges; ++keptIndex)
+      keptBlockData[keptIndex] = blockData[keptIndices[keptIndex]];
+
+    // The very same packet-instance is broadcast to all players within range; only patch a private copy
+    var patchedPacket = packet.shallowClone();
+
+    patchedPacket.getShortArrays().write(0, Arrays.copyOf(keptRelativePositions, numberOfKeptChanges));
+    patchedPacket.getBlockDataArrays().write(0, keptBlockData);
+
+    event.setPacket(patchedPacket);
+  }
+
   @Override
   public void onPacketReceiving(PacketEvent event) {
     try {
       tryAccessSession(event.getPlayer(), session -> {
-        var mainHandItem = session.viewer.getInventory().getItemInMainHand();
+        // Clicks on head-displays; these carry no ACK sequence-number and are of no concern to the server
+        if (event.getPacketType() == PacketType.Play.Client.USE_ENTITY) {
+          var entityId = event.getPacket().getIntegers().read(0);
+          var wasLeft = event.getPacket().getEnumEntityUseActions().read(0).getAction() == EnumWrappers.EntityUseAction.ATTACK;
+
+          // Clicks on real entities are to pass through untouched
+          if (session.onEntityInteract(event.getPlayer(), entityId, wasLeft))
+            event.setCancelled(true);
+
+          return;
+        }
+
+        var player = event.getPlayer();
 
         boolean wasLeft = false;
         Location interactionLocation = null;
@@ -180,47 +590,70 @@ public class HeadWallSessionRegistry extends PacketAdapter implements Listener,
           // Without acknowledgement, the client will refuse to accept follow-up block-updates.
           var ackPacket = protocolManager.createPacket(PacketType.Play.Server.BLOCK_CHANGED_ACK);
           ackPacket.getIntegers().write(0, blockChangeAckId);
-          protocolManager.sendServerPacket(session.viewer, ackPacket, false);
+          protocolManager.sendServerPacket(player, ackPacket, false);
         }
 
         // Block break; left-click
         // Let's not go into as much detail as to figure out whether the block actually broke, just update it regardless.
         if (event.getPacket().getType() == PacketType.Play.Client.BLOCK_DIG) {
+          var digType = event.getPacket().getPlayerDigTypes().read(0);
+
+          // Dropping, swapping and releasing are carried by the same packet, but concern items only
+          if (!isDestroyDigType(digType)) {
+            event.setCancelled(true);
+            session.queueInventoryResync(player, getResyncsOfDigType(digType));
+            return;
+          }
+
           var position = event.getPacket().getBlockPositionModifier().read(0);
 
-          interactionLocation = new Location(
-            session.viewer.getWorld(),
+          var blockLocation = new Location(
+            player.getWorld(),
             position.getX(), position.getY(), position.getZ()
           );
 
-          session.onTryBlockManipulate(interactionLocation);
-          wasLeft = true;
+          session.onTryBlockManipulate(player, blockLocation);
+
+          // A survival left-click starts digging on press and aborts or stops it on release, possibly
+          // ticks apart; only the start is a click, while the rest merely has to resend the block.
+          if (digType == EnumWrappers.PlayerDigType.START_DESTROY_BLOCK) {
+            interactionLocation = blockLocation;
+            wasLeft = true;
+          }
         }
 
         // Block place or interaction; right-click
         else if (event.getPacket().getType() == PacketType.Play.Client.USE_ITEM_ON) {
+          var hand = event.getPacket().getHands().read(0);
+          var handItem = getItemInHand(player, hand);
+
+          // The client predicts placing, filling and using items, which the server has never applied
+          if (!handItem.getType().isAir())
+            session.queueInventoryResync(player, getResyncsOfHand(hand));
+
           var movingPosition = event.getPacket().getMovingBlockPositions().read(0);
           var position = movingPosition.getBlockPosition();
 
           interactionLocation = new Location(
-            session.viewer.getWorld(),
+            player.getWorld(),
             position.getX(),
             position.getY(),
             position.getZ()
           );
 
-          var mainHandItemType = mainHandItem.getType();
+          var handItemType = handItem.getType();
 
-          var doesBuild = !mainHandItemType.isAir() && (
-            mainHandItemType.isBlock() ||
-              mainHandItemType == Material.WATER_BUCKET ||
-              mainHandItemType == Material.LAVA_BUCKET
+          var doesBuild = !handItemType.isAir() && (
+            handItemType.isBlock() ||
+              handItemType == Material.WATER_BUCKET ||
+              handItemType == Material.LAVA_BUCKET
           );
 
           if (doesBuild) {
             var blockFace = protocolLibDirectionToBlockPosition(movingPosition.getDirection());
 
             session.onTryBlockManipulate(
+              player,
               interactionLocation.clone().add(
                 blockFace.getModX(),
                 blockFace.getModY(),
@@ -228,33 +661,79 @@ public class HeadWallSessionRegistry extends PacketAdapter implements Listener,
               )
             );
           } else
-            session.onTryBlockManipulate(interactionLocation);
+            session.onTryBlockManipulate(player, interactionLocation);
         }
 
-        // else: USE_ITEM -> Interaction into air with item in hand, just cancel
+        // Interaction into air with item in hand, just cancel; empty hands have nothing to predict
+        else {
+          var hand = event.getPacket().getHands().read(0);
 
-        event.setCancelled(true);
+          if (!getItemInHand(player, hand).getType().isAir())
+            session.queueInventoryResync(player, getResyncsOfHand(hand));
+        }
 
-        // Force inventory-update, as to re-set the stack-size and durability
-        session.viewer.getInventory().setItemInMainHand(mainHandItem);
+        event.setCancelled(true);
 
         if (interactionLocation == null)
           return;
 
         // Since this is called based on received packets, and interactions may fire multiple times
-        // within a short time-span, debounce relaying this call to the underlying implementation.
-
-        if (System.currentTimeMillis() - lastProcessedInteractionStamp < INTERACTION_MIN_DISTANCE_MS)
-          return;
-
-        onSessionInteract(session, interactionLocation, wasLeft);
-        lastProcessedInteractionStamp = System.currentTimeMillis();
+        // within a short time-span, coalesce them and relay at most one per tick on the main-thread.
+        session.queueInteraction(
+          player,
+          interactionLocation.getBlockX(), interactionLocation.getBlockY(), interactionLocation.getBlockZ(),
+          wasLeft
+        );
       });
     } catch (Exception e) {
       logger.log(Level.SEVERE, "An error occurred while trying to handle a received packet", e);
     }
   }
 
+  private boolean isDestroyDigType(EnumWrappers.PlayerDigType digType) {
+    return switch (digType) {
+      case START_DESTROY_BLOCK, ABORT_DESTROY_BLOCK, STOP_DESTROY_BLOCK -> true;
+      default -> false;
+    };
+  }
+
+  private int getResyncsOfDigType(EnumWrappers.PlayerDigType digType) {
+    return switch (digType) {
+      case DROP_ITEM, DROP_ALL_ITEMS -> HeadWallSession.RESYNC_MAIN_HAND;
+      case SWAP_HELD_ITEMS -> HeadWallSession.RESYNC_MAIN_HAND | HeadWallSession.RESYNC_OFF_HAND;
+      // Releasing a bow or crossbow may have consumed ammunition from anywhere within the inventory
+      case RELEASE_USE_ITEM -> HeadWallSession.RESYNC_INVENTORY;
+      default -> 0;
+    };
+  }
+
+  private int getResyncsOfHand(EnumWrappers.Hand hand) {
+    return hand == EnumWrappers.Hand.OFF_HAND ? HeadWallSession.RESYNC_OFF_HAND : HeadWallSession.RESYNC_MAIN_HAND;
+  }
+
+  private ItemStack getItemInHand(Player player, EnumWrappers.Hand hand) {
+    var inventory = player.getInventory();
+    return hand == EnumWrappers.Hand.OFF_HAND ? inventory.getItemInOffHand() : inventory.getItemInMainHand();
+  }
+
+  private void resyncInventory(Player player, int resyncs) {
+    metrics.increment(WallMetrics.Counter.INVENTORY_RESYNCS);
+
+    if ((resyncs & HeadWallSession.RESYNC_INVENTORY) != 0) {
+      player.updateInventory();
+      return;
+    }
+
+    var inventory = player.getInventory();
+
+    // Setting a slot always sends it, even if it has not changed on the server
+    if ((resyncs & HeadWallSession.RESYNC_MAIN_HAND) != 0)
+      inventory.setItemInMainHand(inventory.getItemInMainHand());
+
+    if ((resyncs & HeadWallSession.RESYNC_OFF_HAND) != 0)
+      inventory.setItemInOffHand(inventory.getItemInOffHand());
+  }
+
   private BlockFace protocolLibDirectionToBlockPosition(EnumWrappers.Direction direction) {
     return switch (direction) {
       case DOWN -> BlockFace.DOWN;
@@ -266,56 +745,221 @@ public class HeadWallSessionRegistry extends PacketAdapter implements Listener,
     };
   }
 
-  public void checkSessionsForDistanceRemoval() {
-    for (var sessionIterator = sessionByPlayerId.values().iterator(); sessionIterator.hasNext();) {
-      var session = sessionIterator.next();
-      var sessionDistanceSquared = session.distanceSquaredTo(session.viewer.getLocation());
+  public void tickSessions() {
+    for (var session : sessionDirectory.getSessions()) {
+      if (session.applyPendingPageTurns()) {
+        for (var viewer : session.getViewers())
+          viewer.sendMessage("§aNavigated to page " + session.getCurrentPage() + "/" + session.getNumberOfPages());
+      }
 
-      if (sessionDistanceSquared <= REMOVAL_DISTANCE_BLOCKS_SQUARED)
-        continue;
+      session.drainPendingInteractions(interaction -> {
+        var location = new Location(interaction.player().getWorld(), interaction.x(), interaction.y(), interaction.z());
+        onSessionInteract(session, interaction.player(), location, interaction.wasLeft());
+      });
 
-      session.viewer.sendMessage("§cYou've exceeded the max distance of " + REMOVAL_DISTANCE_BLOCKS + "; exited session.");
-      session.close();
-      sessionIterator.remove();
+      // After interactions, as to also cover items which have just been given out
+      session.drainPendingInventoryResyncs(this::resyncInventory);
+
+      // Prefetching is a nice-to-have, and is thus never to compete with actual changes of any viewer
+      if (session.getViewers().stream().allMatch(viewer -> packetScheduler.getNumberOfPendingPackets(viewer) == 0))
+        session.prefetchAdjacentPages(PREFETCH_SKULLS_PER_IDLE_TICK);
     }
   }
 
-  public @Nullable HeadWallSession createAndRegister(Player player, List<Head> heads) {
-    var playerId = player.getUniqueId();
-
-    if (sessionByPlayerId.containsKey(playerId))
+  public @Nullable HeadWallSession createAndRegister(Player player, List<CatalogHead> heads) {
+    if (sessionDirectory.isRegistered(player))
       return null;
 
-    var session = new HeadWallSession(player, heads, WALL_PARAMETER, this);
+    var session = new HeadWallSession(player, heads, makeParameters(player), this, metrics);
+
+    sessionDirectory.register(player, session);
+    metrics.increment(WallMetrics.Counter.SESSIONS_OPENED);
+    return session;
+  }
+
+  /**
+   * @return Whether a wall opened by the player at their current location would lie within the world's height
+   */
+  public boolean doesWallFitIntoWorld(Player player) {
+    var location = player.getLocation();
+    var world = location.getWorld();
+
+    if (world == null)
+      return false;
+
+    var geometry = new HeadWallGeometry(
+      location.getBlockX(), location.getBlockY(), location.getBlockZ(),
+      location.getYaw(), makeParameters(player)
+    );
+
+    return geometry.minY >= world.getMinHeight() && geometry.maxY < world.getMaxHeight();
+  }
+
+  private HeadWallParameters makeParameters(Player player) {
+    return new HeadWallParameters(
+      WALL_ROWS, WALL_COLUMNS, WALL_DISTANCE, WALL_TYPE,
+      WALL_PREFETCHES_ADJACENT_PAGES, getRenderMode(player)
+    );
+  }
+
+  public HeadWallRenderMode getRenderMode(Player player) {
+    return renderModeByPlayerId.getOrDefault(player.getUniqueId(), DEFAULT_RENDER_MODE);
+  }
+
+  /**
+   * Sets the render-mode of walls which are opened by the given player from now on.
+   */
+  public void setRenderMode(Player player, HeadWallRenderMode renderMode) {
+    renderModeByPlayerId.put(player.getUniqueId(), renderMode);
+  }
+
+  /**
+   * @return The session owned by the given player, or null if they're not owning any
+   */
+  public @Nullable HeadWallSession getOwnedSession(Player player) {
+    var session = sessionDirectory.getSession(player);
+
+    if (session == null || !session.isOwner(player))
+      return null;
 
-    this.sessionByPlayerId.put(playerId, session);
     return session;
   }
 
-  private void onSessionInteract(HeadWallSession session, Location location, boolean wasLeft) {
+  public boolean isWithinRemovalDistance(HeadWallSession session, Location location) {
+    return session.blockDistanceSquaredTo(location.getBlockX(), location.getBlockY(), location.getBlockZ()) <= REMOVAL_DISTANCE_BLOCKS_SQUARED;
+  }
+
+  /**
+   * Adds the player as a viewer to the given session.
+   * @return False if the player is already part of a session
+   */
+  public boolean joinAndRegister(Player player, HeadWallSession session) {
+    if (!sessionDirectory.register(player, session))
+      return false;
+
+    session.addViewer(player);
+    metrics.increment(WallMetrics.Counter.VIEWERS_JOINED);
+    return true;
+  }
+
+  private void onSessionInteract(HeadWallSession session, Player player, Location location, boolean wasLeft) {
     var correspondingHead = session.getHeadAtLocation(location);
 
     if (correspondingHead == null) {
-      session.viewer.sendMessage("§cPlease click directly on a head; left-click to request, right-click for information, sneak to exit");
+      player.sendMessage("§cPlease click directly on a head; left-click to request, right-click for information, sneak to exit");
       return;
     }
 
     if (wasLeft) {
-      session.viewer.getInventory().addItem(correspondingHead.getHead());
-      session.viewer.sendMessage("§aYou've been given the head " + correspondingHead.name);
+      var headItem = headCatalog.createItem(correspondingHead);
+
+      if (headItem == null) {
+        if (!headCatalog.isHeadDatabaseLoaded())
+          player.sendMessage("§cHeads can be requested as soon as HeadDatabase has finished loading; please try again in a moment");
+        else
+          player.sendMessage("§cThe head " + correspondingHead.name() + " is no longer available");
+
+        return;
+      }
+
+      player.getInventory().addItem(headItem);
+      player.sendMessage("§aYou've been given the head " + correspondingHead.name());
       return;
     }
 
-    session.viewer.sendMessage("§8§m                              ");
-    session.viewer.sendMessage("§aName: " + correspondingHead.name);
-    session.viewer.sendMessage("§aCategory: " + correspondingHead.c.name());
-    session.viewer.sendMessage("§aTags: " + String.join(", ", correspondingHead.tags));
-    session.viewer.sendMessage("§8§m                              ");
+    player.sendMessage("§8§m                              ");
+    player.sendMessage("§aName: " + correspondingHead.name());
+    player.sendMessage("§aCategory: " + correspondingHead.category().name());
+    player.sendMessage("§aTags: " + String.join(", ", correspondingHead.tags()));
+    player.sendMessage("§8§m                              ");
   }
 
   @EventHandler
   public void onQuit(PlayerQuitEvent event) {
-    sessionByPlayerId.remove(event.getPlayer().getUniqueId());
+    var player = event.getPlayer();
+    var session = sessionDirectory.getSession(player);
+
+    if (session != null) {
+      if (session.isOwner(player))
+        endSession(session, "§c" + player.getName() + " has left; the head-wall session ended.");
+      else {
+        sessionDirectory.unregister(player, session);
+        session.removeViewer(player);
+        metrics.increment(WallMetrics.Counter.VIEWERS_LEFT);
+      }
+    }
+
+    // Restores still pending for the player are dropped right below
+    sessionDirectory.forget(player);
+    renderModeByPlayerId.remove(player.getUniqueId());
+    packetScheduler.cancel(player);
+  }
+
+  @EventHandler(priority = EventPriority.MONITOR, ignoreCancelled = true)
+  public void onMove(PlayerMoveEvent event) {
+    var to = event.getTo();
+
+    // The vast majority of move-events only change the rotation or sub-block position
+    if (to == null || isSameBlock(event.getFrom(), to))
+      return;
+
+    leaveIfOutOfRange(event.getPlayer(), to);
+  }
+
+  @EventHandler(priority = EventPriority.MONITOR)
+  public void onVehicleMove(VehicleMoveEvent event) {
+    var to = event.getTo();
+
+    if (isSameBlock(event.getFrom(), to))
+      return;
+
+    // Passengers do not cause move-events of their own, be it on horses, in boats or in minecarts
+    leavePassengersIfOutOfRange(event.getVehicle(), to);
+  }
+
+  private void leavePassengersIfOutOfRange(Entity vehicle, Location to) {
+    for (var passenger : vehicle.getPassengers()) {
+      if (passenger instanceof Player player)
+        leaveIfOutOfRange(player, to);
+
+      // Passengers may be stacked onto one another
+      leavePassengersIfOutOfRange(passenger, to);
+    }
+  }
+
+  private void leaveIfOutOfRange(Player player, Location to) {
+    tryAccessSession(player, session -> {
+      if (isWithinRemovalDistance(session, to))
+        return;
+
+      leaveOrEndSession(player, session, "§cYou've exceeded the max distance of " + REMOVAL_DISTANCE_BLOCKS + "; exited session.");
+    });
+  }
+
+  @EventHandler(priority = EventPriority.MONITOR, ignoreCancelled = true)
+  public void onTeleport(PlayerTeleportEvent event) {
+    var to = event.getTo();
+
+    // Teleports which do not leave the current block (rotation-resets, as an example) keep the wall up
+    if (to != null && isSameBlock(event.getFrom(), to))
+      return;
+
+    var player = event.getPlayer();
+    tryAccessSession(player, session -> leaveOrEndSession(player, session, "§cYou've been teleported; exited session."));
+  }
+
+  @EventHandler
+  public void onWorldChange(PlayerChangedWorldEvent event) {
+    var player = event.getPlayer();
+    tryAccessSession(player, session -> leaveOrEndSession(player, session, "§cYou've changed worlds; exited session."));
+  }
+
+  @EventHandler
+  public void onRespawn(PlayerRespawnEvent event) {
+    var player = event.getPlayer();
+
+    // Respawning neither moves nor teleports, while the respawn-point is rarely anywhere close to the wall
+    tryAccessSession(player, session -> leaveOrEndSession(player, session, "§cYou've respawned; exited session."));
   }
 
   @EventHandler
@@ -323,43 +967,114 @@ public class HeadWallSessionRegistry extends PacketAdapter implements Listener,
     if (!event.isSneaking())
       return;
 
-    tryAccessSession(event.getPlayer(), session -> {
-      session.viewer.sendMessage("§aEnding the head-wall session.");
-      session.close();
-      sessionByPlayerId.remove(session.viewer.getUniqueId());
-    });
+    var player = event.getPlayer();
+    tryAccessSession(player, session -> leaveOrEndSession(player, session, "§aLeaving the head-wall session."));
   }
 
   @EventHandler
   public void onScroll(PlayerItemHeldEvent event) {
-    tryAccessSession(event.getPlayer(), session -> {
-      var isForwards = event.getPreviousSlot() < event.getNewSlot();
+    var player = event.getPlayer();
 
-      if (isForwards) {
-        session.nextPage();
-        session.viewer.sendMessage("§aNavigated to the next page, at " + session.getCurrentPage() + "/" + session.getNumberOfPages());
+    tryAccessSession(player, session -> {
+      // Paging is up to the owner only, as all viewers share the same page
+      if (!session.isOwner(player))
         return;
-      }
 
-      session.previousPage();
-      session.viewer.sendMessage("§aNavigated to the previous page, at " + session.getCurrentPage() + "/" + session.getNumberOfPages());
+      var isForwards = event.getPreviousSlot() < event.getNewSlot();
+
+      // Rendered once per tick, as to not redraw the whole wall for every slot of a fast scroll
+      session.queuePageTurn(isForwards ? 1 : -1);
     });
   }
 
+  private static boolean isSameBlock(Location a, Location b) {
+    return (
+      a.getWorld() == b.getWorld() &&
+      a.getBlockX() == b.getBlockX() &&
+      a.getBlockY() == b.getBlockY() &&
+      a.getBlockZ() == b.getBlockZ()
+    );
+  }
+
+  private void leaveOrEndSession(Player player, HeadWallSession session, String message) {
+    player.sendMessage(message);
+
+    if (session.isOwner(player)) {
+      endSession(session, "§c" + player.getName() + " has ended the head-wall session.");
+      return;
+    }
+
+    sessionDirectory.unregister(player, session);
+    session.removeViewer(player);
+    releaseOnceRestored(player, session);
+    metrics.increment(WallMetrics.Counter.VIEWERS_LEFT);
+  }
+
+  private void endSession(HeadWallSession session, String viewerMessage) {
+    var viewers = session.getViewers();
+
+    for (var viewer : viewers) {
+      sessionDirectory.unregister(viewer, session);
+
+      if (!session.isOwner(viewer)) {
+        viewer.sendMessage(viewerMessage);
+        metrics.increment(WallMetrics.Counter.VIEWERS_LEFT);
+      }
+    }
+
+    session.close();
+
+    for (var viewer : viewers)
+      releaseOnceRestored(viewer, session);
+
+    metrics.increment(WallMetrics.Counter.SESSIONS_CLOSED);
+  }
+
+  /**
+   * Keeps filtering the server's updates of the session's cells until its restore, which has just been
+   * handed over, has actually been sent, as the restore would overwrite these updates with stale blocks otherwise.
+   */
+  private void releaseOnceRestored(Player player, HeadWallSession session) {
+    runOnceSent(player, null, () -> sessionDirectory.release(player, session));
+  }
+
   private void tryAccessSession(@Nullable Player player, Consumer<HeadWallSession> handler) {
     if (player == null)
       return;
 
-    var session = sessionByPlayerId.get(player.getUniqueId());
+    var session = sessionDirectory.getSession(player);
 
     if (session != null)
       handler.accept(session);
   }
 
+  public List<String> describeCaches() {
+    return List.of(
+      "§aSkull-texture cache: §f" + skullTextureCache.describeStatistics(),
+      "§aDisplay-item cache: §f" + displayItemCache.describeStatistics(),
+      "§aGive-item cache: §f" + headCatalog.describeItemTemplateStatistics()
+    );
+  }
+
   public void onShutdown() {
-    for (var sessionIterator = sessionByPlayerId.values().iterator(); sessionIterator.hasNext();) {
-      sessionIterator.next().close();
-      sessionIterator.remove();
+    logger.info("Skull-texture cache: " + skullTextureCache.describeStatistics());
+    logger.info("Display-item cache: " + displayItemCache.describeStatistics());
+    logger.info("Give-item cache: " + headCatalog.describeItemTemplateStatistics());
+
+    for (var session : sessionDirectory.unregisterAll())
+      session.close();
+
+    // Lets the restores handed over by closing the sessions above be encoded, while rejecting new work
+    packetEncoder.shutdown();
+
+    try {
+      if (!packetEncoder.awaitTermination(ENCODER_SHUTDOWN_TIMEOUT_SECONDS, TimeUnit.SECONDS))
+        logger.warning("The packet-encoder did not finish within " + ENCODER_SHUTDOWN_TIMEOUT_SECONDS + "s; some walls may not be restored");
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
     }
+
+    // The scheduler's task is cancelled alongside the plugin, thus there's no next tick to send the restores on
+    packetScheduler.flush();
   }
 }
@@ -0,0 +1,72 @@
+package me.blvckbytes.head_database_wall;
+
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAccumulator;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Lock-free histogram of non-negative values over power-of-two buckets, which trades exactness
+ * for a constant footprint; quantiles are reported as the upper bound of their bucket.
+ */
+public class Histogram {
+
+  private static final int NUMBER_OF_BUCKETS = 64;
+
+  // Bucket i holds values within [2^(i-1), 2^i), where bucket zero only holds zero
+  private final AtomicLongArray countByBucket;
+  private final LongAdder count;
+  private final LongAdder sum;
+  private final LongAccumulator max;
+
+  public Histogram() {
+    this.countByBucket = new AtomicLongArray(NUMBER_OF_BUCKETS);
+    this.count = new LongAdder();
+    this.sum = new LongAdder();
+    this.max = new LongAccumulator(Math::max, 0);
+  }
+
+  public void record(long value) {
+    if (value < 0)
+      value = 0;
+
+    countByBucket.incrementAndGet(NUMBER_OF_BUCKETS - Long.numberOfLeadingZeros(value));
+    count.increment();
+    sum.add(value);
+    max.accumulate(value);
+  }
+
+  public long getCount() {
+    return count.sum();
+  }
+
+  public double getMean() {
+    var currentCount = count.sum();
+    return currentCount == 0 ? 0 : (double) sum.sum() / currentCount;
+  }
+
+  public long getMax() {
+    return max.get();
+  }
+
+  /**
+   * @return Upper bound of the bucket which holds the given quantile, within [0;1]
+   */
+  public long getQuantile(double quantile) {
+    var currentCount = count.sum();
+
+    if (currentCount == 0)
+      return 0;
+
+    var targetRank = (long) Math.ceil(quantile * currentCount);
+    var rank = 0L;
+
+    for (var bucketIndex = 0; bucketIndex < NUMBER_OF_BUCKETS; ++bucketIndex) {
+      rank += countByBucket.get(bucketIndex);
+
+      if (rank >= targetRank)
+        return Math.min(bucketIndex == 0 ? 0 : (1L << bucketIndex) - 1, getMax());
+    }
+
+    return getMax();
+  }
+}
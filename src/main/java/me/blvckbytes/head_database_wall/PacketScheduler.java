@@ -0,0 +1,322 @@
+package me.blvckbytes.head_database_wall;
+
+import com.comphenix.protocol.ProtocolManager;
+import com.comphenix.protocol.events.PacketContainer;
+import com.comphenix.protocol.utility.MinecraftFields;
+import org.bukkit.entity.Player;
+
+import javax.annotation.Nullable;
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+import java.lang.reflect.Field;
+import java.util.*;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * Spreads the packets of large walls over multiple ticks, as to neither spike the viewer's
+ * bandwidth nor the server's CPU within a single tick. Each player's queue is drained in FIFO
+ * order under a per-tick budget, and is held back entirely while the player's channel is not
+ * writable, as to let the network catch up before piling on even more data.
+ */
+public class PacketScheduler {
+
+  public record Budget(int maxPacketsPerTick, int maxBytesPerTick) {}
+
+  // Either a packet, or a callback which is to be run as soon as all packets before it have been sent
+  private record QueuedPacket(@Nullable PacketContainer packet, int estimatedBytes, @Nullable Object cancellationTag, @Nullable Runnable callback) {}
+
+  private static class PlayerQueue {
+    final Player player;
+    final ArrayDeque<QueuedPacket> packets;
+
+    // Lazily resolved, null if the channel could not be determined, in which case it's assumed to be writable
+    @Nullable Object channel;
+    boolean didResolveChannel;
+
+    // Spent budget of the tick this queue has last been drained within, as draining pauses at callbacks
+    long drainedTick;
+    int sentPacketsInTick, sentBytesInTick;
+
+    PlayerQueue(Player player) {
+      this.player = player;
+      this.packets = new ArrayDeque<>();
+    }
+  }
+
+  private final ProtocolManager protocolManager;
+  private final Logger logger;
+  private final Budget budget;
+  private final WallMetrics metrics;
+
+  private final Map<UUID, PlayerQueue> queueByPlayerId;
+
+  private @Nullable MethodHandle channelGetter;
+  private @Nullable MethodHandle isWritableMethod;
+  private boolean didResolveChannelAccess;
+
+  private long currentTick;
+
+  public PacketScheduler(ProtocolManager protocolManager, Logger logger, Budget budget, WallMetrics metrics) {
+    this.protocolManager = protocolManager;
+    this.logger = logger;
+    this.budget = budget;
+    this.metrics = metrics;
+    this.queueByPlayerId = new HashMap<>();
+  }
+
+  /**
+   * @param cancellationTag Tag by which this packet may be dropped again before it has been sent,
+   *                        see {@link #cancel(Player, Object)}; null if it's not to be cancelled selectively
+   */
+  public synchronized void enqueue(Player player, PacketContainer packet, int estimatedBytes, @Nullable Object cancellationTag) {
+    queueByPlayerId
+      .computeIfAbsent(player.getUniqueId(), playerId -> new PlayerQueue(player))
+      .packets.add(new QueuedPacket(packet, estimatedBytes, cancellationTag, null));
+  }
+
+  /**
+   * Runs the callback on the main-thread once all packets enqueued for the player up until now have
+   * been sent; it's dropped alongside these packets when cancelled by its tag or as a whole.
+   */
+  public synchronized void enqueueCallback(Player player, @Nullable Object cancellationTag, Runnable callback) {
+    queueByPlayerId
+      .computeIfAbsent(player.getUniqueId(), playerId -> new PlayerQueue(player))
+      .packets.add(new QueuedPacket(null, 0, cancellationTag, callback));
+  }
+
+  /**
+   * Drops all packets which have not yet been sent to the given player.
+   */
+  public synchronized void cancel(Player player) {
+    var queue = queueByPlayerId.remove(player.getUniqueId());
+
+    if (queue != null)
+      metrics.add(WallMetrics.Counter.PACKETS_CANCELLED, countPackets(queue));
+  }
+
+  /**
+   * Drops all packets carrying the given tag which have not yet been sent to the given player.
+   * @return Number of dropped packets
+   */
+  public synchronized int cancel(Player player, Object cancellationTag) {
+    var queue = queueByPlayerId.get(player.getUniqueId());
+
+    if (queue == null)
+      return 0;
+
+    var packetsBefore = countPackets(queue);
+    queue.packets.removeIf(queuedPacket -> queuedPacket.cancellationTag == cancellationTag);
+
+    // Dropped callbacks do not leave the client in any different state, thus only count packets
+    var droppedPackets = packetsBefore - countPackets(queue);
+
+    metrics.add(WallMetrics.Counter.PACKETS_CANCELLED, droppedPackets);
+    return droppedPackets;
+  }
+
+  /**
+   * @return Number of pending entries, where pending callbacks are counted as well, as they only linger for a tick
+   */
+  public synchronized int getNumberOfPendingPackets(Player player) {
+    var queue = queueByPlayerId.get(player.getUniqueId());
+    return queue == null ? 0 : queue.packets.size();
+  }
+
+  private static int countPackets(PlayerQueue queue) {
+    var numberOfPackets = 0;
+
+    for (var queuedPacket : queue.packets) {
+      if (queuedPacket.packet != null)
+        ++numberOfPackets;
+    }
+
+    return numberOfPackets;
+  }
+
+  public void tick() {
+    synchronized (this) {
+      ++currentTick;
+    }
+
+    var callbacks = new ArrayList<Runnable>();
+
+    // Callbacks may send packets themselves, thus any further packets of their player have to wait for them
+    do {
+      callbacks.clear();
+
+      synchronized (this) {
+        for (var queueIterator = queueByPlayerId.values().iterator(); queueIterator.hasNext();) {
+          var queue = queueIterator.next();
+
+          if (!queue.player.isOnline()) {
+            queueIterator.remove();
+            continue;
+          }
+
+          if (!isWritable(queue))
+            continue;
+
+          var callback = drain(queue, budget);
+
+          if (callback != null)
+            callbacks.add(callback);
+
+          if (queue.packets.isEmpty())
+            queueIterator.remove();
+        }
+      }
+
+      runCallbacks(callbacks);
+    } while (!callbacks.isEmpty());
+  }
+
+  /**
+   * Sends all pending packets and runs all pending callbacks right away, regardless of the budget
+   * and of the channels' writability; used on shutdown, where there's no next tick to wait for.
+   */
+  public void flush() {
+    var callbacks = new ArrayList<Runnable>();
+
+    do {
+      callbacks.clear();
+
+      synchronized (this) {
+        for (var queueIterator = queueByPlayerId.values().iterator(); queueIterator.hasNext();) {
+          var queue = queueIterator.next();
+
+          if (queue.player.isOnline()) {
+            var callback = drain(queue, null);
+
+            if (callback != null)
+              callbacks.add(callback);
+          }
+
+          if (queue.packets.isEmpty() || !queue.player.isOnline())
+            queueIterator.remove();
+        }
+      }
+
+      runCallbacks(callbacks);
+    } while (!callbacks.isEmpty());
+  }
+
+  /**
+   * Sends packets in order until either the budget of the current tick has been spent, or a callback
+   * is reached, which is then taken off the queue, as to be run once the lock has been released.
+   * @return The callback which has been reached, if any
+   */
+  private @Nullable Runnable drain(PlayerQueue queue, @Nullable Budget budget) {
+    if (queue.drainedTick != currentTick) {
+      queue.drainedTick = currentTick;
+      queue.sentPacketsInTick = 0;
+      queue.sentBytesInTick = 0;
+    }
+
+    var sentPackets = 0;
+    var sentBytes = 0;
+    Runnable callback = null;
+
+    while (!queue.packets.isEmpty()) {
+      var nextPacket = queue.packets.peek();
+
+      if (nextPacket.callback != null) {
+        queue.packets.poll();
+        callback = nextPacket.callback;
+        break;
+      }
+
+      // Always send at least one packet per tick, as to guarantee progress, even on tiny byte-budgets
+      if (budget != null && queue.sentPacketsInTick > 0 && (queue.sentPacketsInTick >= budget.maxPacketsPerTick || queue.sentBytesInTick + nextPacket.estimatedBytes > budget.maxBytesPerTick))
+        break;
+
+      queue.packets.poll();
+
+      try {
+        protocolManager.sendServerPacket(queue.player, nextPacket.packet, false);
+      } catch (Exception e) {
+        logger.log(Level.SEVERE, "An error occurred while trying to send a scheduled packet", e);
+      }
+
+      ++sentPackets;
+      sentBytes += nextPacket.estimatedBytes;
+
+      ++queue.sentPacketsInTick;
+      queue.sentBytesInTick += nextPacket.estimatedBytes;
+    }
+
+    metrics.add(WallMetrics.Counter.PACKETS_SENT, sentPackets);
+    metrics.add(WallMetrics.Counter.BYTES_SENT, sentBytes);
+
+    return callback;
+  }
+
+  private void runCallbacks(List<Runnable> callbacks) {
+    for (var callback : callbacks) {
+      try {
+        callback.run();
+      } catch (Exception e) {
+        logger.log(Level.SEVERE, "An error occurred while trying to run a scheduled callback", e);
+      }
+    }
+  }
+
+  private boolean isWritable(PlayerQueue queue) {
+    if (!queue.didResolveChannel) {
+      queue.didResolveChannel = true;
+      queue.channel = resolveChannel(queue.player);
+    }
+
+    if (queue.channel == null || isWritableMethod == null)
+      return true;
+
+    try {
+      return (boolean) isWritableMethod.invoke(queue.channel);
+    } catch (Throwable e) {
+      return true;
+    }
+  }
+
+  private @Nullable Object resolveChannel(Player player) {
+    try {
+      var networkManager = MinecraftFields.getNetworkManager(player);
+
+      if (networkManager == null)
+        return null;
+
+      if (!didResolveChannelAccess) {
+        didResolveChannelAccess = true;
+        resolveChannelAccess(networkManager.getClass());
+      }
+
+      if (channelGetter == null)
+        return null;
+
+      return channelGetter.invoke(networkManager);
+    } catch (Throwable e) {
+      logger.log(Level.WARNING, "Could not resolve the network-channel of " + player.getName() + "; sending without backpressure", e);
+      return null;
+    }
+  }
+
+  private void resolveChannelAccess(Class<?> networkManagerClass) throws Exception {
+    // Netty is not a compile-time dependency, thus look it up by name
+    for (var currentClass = networkManagerClass; currentClass != null; currentClass = currentClass.getSuperclass()) {
+      for (Field field : currentClass.getDeclaredFields()) {
+        if (!field.getType().getName().equals("io.netty.channel.Channel"))
+          continue;
+
+        field.setAccessible(true);
+
+        var lookup = MethodHandles.lookup();
+
+        channelGetter = lookup.unreflectGetter(field);
+        isWritableMethod = lookup.findVirtual(field.getType(), "isWritable", MethodType.methodType(boolean.class));
+        return;
+      }
+    }
+
+    logger.warning("Could not locate the channel-field within " + networkManagerClass + "; sending without backpressure");
+  }
+}
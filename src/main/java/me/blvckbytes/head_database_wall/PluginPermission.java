@@ -4,7 +4,8 @@ import org.bukkit.command.ConsoleCommandSender;
 import org.bukkit.permissions.Permissible;
 
 public enum PluginPermission {
-  USE("use")
+  USE("use"),
+  STATS("stats"),
   ;
 
   private final String node;
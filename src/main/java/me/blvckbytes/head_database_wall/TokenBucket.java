@@ -0,0 +1,39 @@
+package me.blvckbytes.head_database_wall;
+
+/**
+ * Classic token-bucket, allowing for short bursts of up to capacity actions, while limiting the
+ * sustained rate to one action per refill-interval. Tokens are refilled lazily whenever consumed.
+ */
+public class TokenBucket {
+
+  private final int capacity;
+  private final long refillIntervalNanos;
+
+  private int tokens;
+  private long lastRefillStamp;
+
+  public TokenBucket(int capacity, long refillIntervalMs) {
+    this.capacity = capacity;
+    this.refillIntervalNanos = refillIntervalMs * 1_000_000;
+    this.tokens = capacity;
+    this.lastRefillStamp = System.nanoTime();
+  }
+
+  public synchronized boolean tryConsume() {
+    var now = System.nanoTime();
+    var refills = (now - lastRefillStamp) / refillIntervalNanos;
+
+    if (refills > 0) {
+      tokens = (int) Math.min(capacity, tokens + refills);
+
+      // Keep the remainder, as to not lose partial progress towards the next token
+      lastRefillStamp = tokens == capacity ? now : lastRefillStamp + refills * refillIntervalNanos;
+    }
+
+    if (tokens == 0)
+      return false;
+
+    --tokens;
+    return true;
+  }
+}
@@ -0,0 +1,134 @@
+package me.blvckbytes.head_database_wall;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Counters and histograms of the plugin's operation, which are cheap enough to be updated from
+ * packet-threads on every filtered block-change, as all of them are striped.
+ */
+public class WallMetrics {
+
+  public enum Counter {
+    SESSIONS_OPENED,
+    SESSIONS_CLOSED,
+    VIEWERS_JOINED,
+    VIEWERS_LEFT,
+    PAGE_TURNS,
+    SCROLLS_COALESCED,
+    INTERACTIONS,
+    INTERACTIONS_DEBOUNCED,
+    INVENTORY_RESYNCS,
+    BLOCK_CHANGES_FILTERED,
+    SECTION_UPDATES_PATCHED,
+    PACKETS_SENT,
+    BYTES_SENT,
+    PACKETS_CANCELLED,
+  }
+
+  public enum Render {
+    OPEN,
+    JOIN,
+    PAGE_TURN,
+    CLOSE,
+  }
+
+  private final LongAdder[] counters;
+
+  private final Histogram[] packetsByRender;
+
+  // Microseconds from triggering a render until its last packet has been written, per viewer
+  private final Histogram[] latencyByRender;
+
+  public WallMetrics() {
+    this.counters = new LongAdder[Counter.values().length];
+
+    for (var counterIndex = 0; counterIndex < counters.length; ++counterIndex)
+      counters[counterIndex] = new LongAdder();
+
+    this.packetsByRender = new Histogram[Render.values().length];
+    this.latencyByRender = new Histogram[Render.values().length];
+
+    for (var renderIndex = 0; renderIndex < packetsByRender.length; ++renderIndex) {
+      packetsByRender[renderIndex] = new Histogram();
+      latencyByRender[renderIndex] = new Histogram();
+    }
+  }
+
+  public void increment(Counter counter) {
+    counters[counter.ordinal()].increment();
+  }
+
+  public void add(Counter counter, long amount) {
+    counters[counter.ordinal()].add(amount);
+  }
+
+  public long get(Counter counter) {
+    return counters[counter.ordinal()].sum();
+  }
+
+  public void recordRenderPackets(Render render, long packets) {
+    packetsByRender[render.ordinal()].record(packets);
+  }
+
+  public void recordRenderLatency(Render render, long nanos) {
+    latencyByRender[render.ordinal()].record(nanos / 1000);
+  }
+
+  public List<String> describe() {
+    var lines = new ArrayList<String>();
+
+    lines.add("§8§m                              ");
+    lines.add("§aActive sessions: §f" + (get(Counter.SESSIONS_OPENED) - get(Counter.SESSIONS_CLOSED)) + "§a, further viewers: §f" + (get(Counter.VIEWERS_JOINED) - get(Counter.VIEWERS_LEFT)));
+
+    for (var counter : Counter.values())
+      lines.add("§a" + counter.name() + ": §f" + get(counter));
+
+    for (var render : Render.values()) {
+      var packets = packetsByRender[render.ordinal()];
+      var latency = latencyByRender[render.ordinal()];
+
+      lines.add(String.format(
+        Locale.ROOT,
+        "§a%s: §f%d§a renders, §f%.1f§a packets avg, latency p50 §f%.1f§a ms, p99 §f%.1f§a ms, max §f%.1f§a ms",
+        render.name(), packets.getCount(), packets.getMean(),
+        latency.getQuantile(.5) / 1000.0, latency.getQuantile(.99) / 1000.0, latency.getMax() / 1000.0
+      ));
+    }
+
+    lines.add("§8§m                              ");
+    return lines;
+  }
+
+  public String toJson() {
+    var result = new StringBuilder("{\"counters\":{");
+
+    for (var counter : Counter.values()) {
+      if (counter.ordinal() > 0)
+        result.append(',');
+
+      result.append('"').append(counter.name().toLowerCase(Locale.ROOT)).append("\":").append(get(counter));
+    }
+
+    result.append("},\"renders\":{");
+
+    for (var render : Render.values()) {
+      var packets = packetsByRender[render.ordinal()];
+      var latency = latencyByRender[render.ordinal()];
+
+      if (render.ordinal() > 0)
+        result.append(',');
+
+      result.append(String.format(
+        Locale.ROOT,
+        "\"%s\":{\"count\":%d,\"packets_mean\":%.2f,\"packets_max\":%d,\"latency_us_p50\":%d,\"latency_us_p99\":%d,\"latency_us_max\":%d}",
+        render.name().toLowerCase(Locale.ROOT), packets.getCount(), packets.getMean(), packets.getMax(),
+        latency.getQuantile(.5), latency.getQuantile(.99), latency.getMax()
+      ));
+    }
+
+    return result.append("}}").toString();
+  }
+}
@@ -0,0 +1,50 @@
+package me.blvckbytes.head_database_wall;
+
+import org.bukkit.Location;
+import org.bukkit.entity.Player;
+
+import javax.annotation.Nullable;
+import java.util.List;
+
+/**
+ * Presents the heads of a session's slots to its viewers, while the session itself takes care of
+ * the wall, of clearing obstructions in front of it and of restoring the real world afterwards.
+ */
+public interface WallRenderBackend {
+
+  /**
+   * @return Whether slots are fake blocks within the head-layer, which is then guarded as a whole;
+   *         otherwise, the head-layer is merely kept clear of obstructions, just like the viewing-box
+   */
+  boolean occupiesHeadLayer();
+
+  /**
+   * Sends the batch, which may already hold further cells of the session, along with the given slots.
+   * @param texturesBySlot Textures to be displayed per slot, where null leaves the slot empty
+   * @param spawn Whether the players have not been sent any slots yet
+   * @param cancellationTag See {@link BlockChangeBatch#setCancellationTag(Object)}
+   * @return Number of packets sent to each of the players
+   */
+  int renderSlots(
+    List<Player> players, BlockChangeBatch batch,
+    @Nullable String[] texturesBySlot, int[] changedSlots, int numberOfChangedSlots,
+    boolean spawn, @Nullable Object cancellationTag
+  );
+
+  /**
+   * Resends a slot's block which the client may have manipulated; only called if {@link #occupiesHeadLayer()}.
+   */
+  void resendSlot(Player player, Location location, @Nullable String textures);
+
+  /**
+   * Removes whatever has been spawned for the slots; blocks are restored by the session itself.
+   * @return Number of packets sent to each of the players
+   */
+  int despawnSlots(List<Player> players);
+
+  /**
+   * @return Index of the slot the entity belongs to, or -1 if it's not one of this backend's
+   */
+  int findSlotByEntityId(int entityId);
+
+}
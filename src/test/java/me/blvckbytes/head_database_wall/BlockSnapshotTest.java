@@ -0,0 +1,378 @@
+package me.blvckbytes.head_database_wall;
+
+import it.unimi.dsi.fastutil.longs.Long2ObjectAVLTreeMap;
+import it.unimi.dsi.fastutil.longs.Long2ObjectMap;
+import org.bukkit.Location;
+import org.bukkit.Material;
+import org.bukkit.World;
+import org.bukkit.block.BlockFace;
+import org.bukkit.block.BlockState;
+import org.bukkit.entity.Player;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+
+import java.lang.reflect.Array;
+import java.lang.reflect.Modifier;
+import java.util.*;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class BlockSnapshotTest {
+
+  // The default wall, whose viewer stands right before a chunk-border, such that the wall spans two chunks
+  private static final HeadWallParameters PARAMETERS = new HeadWallParameters(5, 8, 3, Material.COAL_BLOCK, true, HeadWallRenderMode.BLOCKS);
+  private static final int VIEWER_X = 13, VIEWER_Y = 64, VIEWER_Z = 7;
+
+  // Rough object-layout of a 64-bit HotSpot with compressed oops and class-pointers
+  private static final int OBJECT_HEADER_BYTES = 12;
+  private static final int ARRAY_HEADER_BYTES = 16;
+  private static final int REFERENCE_BYTES = 4;
+
+  @BeforeAll
+  public static void installServer() {
+    FakeServer.install();
+  }
+
+  @Test
+  public void everyCellRoundTripsThroughItsIndexAndThePalette() {
+    var geometry = makeGeometry();
+    var snapshot = BlockSnapshot.capture(makeWorld(geometry), geometry);
+    var materials = EnumSet.noneOf(Material.class);
+
+    for (var cellIndex = 0; cellIndex < geometry.getNumberOfCells(); ++cellIndex) {
+      var x = geometry.getCellX(cellIndex);
+      var y = geometry.getCellY(cellIndex);
+      var z = geometry.getCellZ(cellIndex);
+
+      assertTrue(geometry.isWithinBounds(x, y, z), "Cell " + cellIndex + " lies outside of the wall's bounds");
+      assertEquals(cellIndex, geometry.getCellIndex(x, y, z), "Cell " + cellIndex + " did not round-trip through its coordinates");
+
+      var material = typicalMaterialAt(geometry, x, y, z);
+      materials.add(material);
+
+      assertSame(FakeServer.blockData(material), snapshot.getBlockData(cellIndex), "Cell " + cellIndex + " did not round-trip through the palette");
+      assertEquals(material.isAir(), snapshot.isAir(cellIndex), "Cell " + cellIndex + " has been mistaken about being air");
+    }
+
+    // Otherwise, the palette would not have been put to the test
+    assertTrue(materials.size() > 2, "The wall only spans " + materials);
+  }
+
+  @Test
+  public void tileStatesAreOnlyKeptForCellsOfTheWall() {
+    var geometry = makeGeometry();
+    var headCellIndex = geometry.getHeadCellIndex(geometry.getPageSize() - 1);
+
+    var chest = FakeServer.tileState(Material.CHEST, geometry.getCellX(headCellIndex), geometry.getCellY(headCellIndex), geometry.getCellZ(headCellIndex));
+    var outsideSign = FakeServer.tileState(Material.OAK_SIGN, geometry.maxX + 1, geometry.minY, geometry.minZ);
+
+    var snapshot = BlockSnapshot.capture(makeWorld(geometry, chest, outsideSign), geometry);
+
+    for (var cellIndex = 0; cellIndex < geometry.getNumberOfCells(); ++cellIndex) {
+      if (cellIndex == headCellIndex)
+        assertSame(chest, snapshot.getTileState(cellIndex), "The chest's tile-state has not been kept");
+      else
+        assertNull(snapshot.getTileState(cellIndex), "Cell " + cellIndex + " holds a foreign tile-state");
+    }
+
+    assertNull(BlockSnapshot.capture(makeWorld(geometry), geometry).getTileState(headCellIndex), "A wall without tile-entities holds a tile-state");
+  }
+
+  @Test
+  public void cellsAboveTheWorldsHeightAreCapturedAsAir() {
+    var geometry = new HeadWallGeometry(VIEWER_X, FakeServer.MAX_HEIGHT - 2, VIEWER_Z, 0, PARAMETERS);
+    var snapshot = BlockSnapshot.capture(FakeServer.world("world", (x, y, z) -> {
+      assertTrue(y < FakeServer.MAX_HEIGHT, "A block above the world's height has been requested");
+      return Material.STONE;
+    }), geometry);
+
+    assertTrue(geometry.maxY >= FakeServer.MAX_HEIGHT, "The wall does not exceed the world's height");
+
+    for (var cellIndex = 0; cellIndex < geometry.getNumberOfCells(); ++cellIndex)
+      assertEquals(geometry.getCellY(cellIndex) >= FakeServer.MAX_HEIGHT, snapshot.isAir(cellIndex), "Cell " + cellIndex + " has been mistaken about being air");
+  }
+
+  @Test
+  public void sessionsRetainAFractionOfWhatTheyUsedToKeep() {
+    var geometry = makeGeometry();
+    var world = makeWorld(geometry);
+    var player = FakeServer.player("Player", new Location(world, VIEWER_X + .5, VIEWER_Y, VIEWER_Z + .5, 0, 0));
+    var heads = SyntheticHeads.make(geometry.getPageSize() * 4);
+    var communicator = new RecordingCommunicator();
+    var metrics = new WallMetrics();
+
+    // Right after drawing the first page, as former sessions did not prefetch; these also did not cover the prefetch-layers
+    var session = new HeadWallSession(player, heads, PARAMETERS, communicator, metrics);
+    session.show();
+
+    var formerSession = new FormerHeadWallSession(player, heads, PARAMETERS, communicator);
+    formerSession.show();
+
+    // Neither session owns the server's instances, the viewer, the catalog or the plugin's services
+    var sharedInstances = Collections.newSetFromMap(new IdentityHashMap<>());
+    sharedInstances.addAll(List.of(world, player, heads, communicator, metrics));
+
+    for (var material : Material.values())
+      sharedInstances.add(FakeServer.blockData(material));
+
+    for (var head : heads) {
+      sharedInstances.add(head);
+      sharedInstances.add(head.textures());
+    }
+
+    var sessionBytes = estimateRetainedBytes(session, sharedInstances);
+    var formerSessionBytes = estimateRetainedBytes(formerSession, sharedInstances);
+
+    assertTrue(
+      sessionBytes * 10 <= formerSessionBytes,
+      "A session of " + geometry.getNumberOfCells() + " cells retains " + sessionBytes + " bytes, while it used to retain " + formerSessionBytes + " bytes"
+    );
+  }
+
+  private static HeadWallGeometry makeGeometry() {
+    return new HeadWallGeometry(VIEWER_X, VIEWER_Y, VIEWER_Z, 0, PARAMETERS);
+  }
+
+  /**
+   * Ground below the viewer's feet, with some foliage and rubble scattered around above it.
+   */
+  private static Material typicalMaterialAt(HeadWallGeometry geometry, int x, int y, int z) {
+    if (y < VIEWER_Y - 1)
+      return Material.DIRT;
+
+    if (y < VIEWER_Y)
+      return Material.GRASS_BLOCK;
+
+    var hash = (x * 31 + y) * 31 + z;
+
+    return switch (Math.floorMod(hash, 11)) {
+      case 0 -> Material.OAK_LEAVES;
+      case 1 -> Material.SHORT_GRASS;
+      case 2 -> Material.STONE;
+      default -> Material.AIR;
+    };
+  }
+
+  private static World makeWorld(HeadWallGeometry geometry, BlockState... tileEntities) {
+    return FakeServer.world("world", (x, y, z) -> typicalMaterialAt(geometry, x, y, z), tileEntities);
+  }
+
+  /**
+   * Sums up the shallow sizes of all objects reachable from the root, excluding the given instances.
+   */
+  private static long estimateRetainedBytes(Object root, Set<Object> excludedInstances) {
+    var visited = Collections.newSetFromMap(new IdentityHashMap<>());
+    var pending = new ArrayDeque<>();
+    var totalBytes = 0L;
+
+    pending.add(root);
+
+    while (!pending.isEmpty()) {
+      var instance = pending.poll();
+
+      // Enum-constants are shared by definition
+      if (instance instanceof Enum<?> || excludedInstances.contains(instance) || !visited.add(instance))
+        continue;
+
+      var type = instance.getClass();
+
+      if (type.isArray()) {
+        var length = Array.getLength(instance);
+        var componentType = type.getComponentType();
+
+        totalBytes += align(ARRAY_HEADER_BYTES + (long) length * sizeOf(componentType));
+
+        if (!componentType.isPrimitive()) {
+          for (var index = 0; index < length; ++index) {
+            var element = Array.get(instance, index);
+
+            if (element != null)
+              pending.add(element);
+          }
+        }
+
+        continue;
+      }
+
+      var shallowBytes = (long) OBJECT_HEADER_BYTES;
+
+      for (var currentType = type; currentType != null; currentType = currentType.getSuperclass()) {
+        for (var field : currentType.getDeclaredFields()) {
+          if (Modifier.isStatic(field.getModifiers()))
+            continue;
+
+          shallowBytes += sizeOf(field.getType());
+
+          if (field.getType().isPrimitive())
+            continue;
+
+          try {
+            field.setAccessible(true);
+
+            var value = field.get(instance);
+
+            if (value != null)
+              pending.add(value);
+          } catch (ReflectiveOperationException e) {
+            throw new IllegalStateException("Could not read field " + field, e);
+          }
+        }
+      }
+
+      totalBytes += align(shallowBytes);
+    }
+
+    return totalBytes;
+  }
+
+  private static int sizeOf(Class<?> type) {
+    if (!type.isPrimitive())
+      return REFERENCE_BYTES;
+
+    if (type == long.class || type == double.class)
+      return 8;
+
+    if (type == int.class || type == float.class)
+      return 4;
+
+    if (type == short.class || type == char.class)
+      return 2;
+
+    return 1;
+  }
+
+  private static long align(long bytes) {
+    return (bytes + 7) & ~7L;
+  }
+
+  /**
+   * The data-structures sessions used to keep per wall, before cells were addressed arithmetically and
+   * restored from a snapshot: a cloned location per block, keyed by its hash within two AVL-trees, one of
+   * which maps onto a capturing restore-routine. Only what has been retained is rebuilt, while the routines
+   * themselves are never run.
+   */
+  private static class FormerHeadWallSession {
+
+    private record LocationAndHash(Location location, long hash) {
+      LocationAndHash(Location location) {
+        this(location, fastCoordinateHash(location));
+      }
+    }
+
+    private final LocationAndHash[][] headGrid;
+    private final LocationAndHash[] viewingBoxLocations;
+    private final LocationAndHash[] wallLocations;
+    private final BlockFace lookingFace;
+    private final Long2ObjectMap<CatalogHead> headByLocationHash;
+    private final Long2ObjectMap<Runnable> restoreRoutineByLocationHash;
+
+    private final Player viewer;
+    private final Location bottomCenter;
+
+    private final HeadWallParameters parameters;
+    private final List<CatalogHead> heads;
+
+    private final int pageSize;
+    private final int currentPage;
+
+    private final HeadWallCommunicator communicator;
+
+    FormerHeadWallSession(Player viewer, List<CatalogHead> heads, HeadWallParameters parameters, HeadWallCommunicator communicator) {
+      this.viewer = viewer;
+      this.parameters = parameters;
+      this.heads = heads;
+      this.communicator = communicator;
+
+      this.headByLocationHash = new Long2ObjectAVLTreeMap<>();
+      this.restoreRoutineByLocationHash = new Long2ObjectAVLTreeMap<>();
+
+      this.pageSize = parameters.rows() * parameters.columns();
+      this.currentPage = 0;
+
+      this.headGrid = new LocationAndHash[parameters.rows()][parameters.columns()];
+      this.wallLocations = new LocationAndHash[pageSize];
+
+      var wallDistance = parameters.distance() + 1;
+      var viewingBoxDepth = parameters.distance() + 1;
+
+      this.viewingBoxLocations = new LocationAndHash[pageSize * viewingBoxDepth];
+
+      // Only ever looking south, which has the left-hand side lie towards the east
+      var viewerLocation = viewer.getLocation();
+      lookingFace = BlockFace.SOUTH;
+      var lookingFaceOrthogonal = BlockFace.EAST;
+      var halfWidth = parameters.columns() / 2;
+
+      bottomCenter = viewerLocation.add(lookingFace.getModX() * wallDistance, 0, lookingFace.getModZ() * wallDistance);
+
+      var bottomLeft = bottomCenter.add(lookingFaceOrthogonal.getModX() * halfWidth, 0, lookingFaceOrthogonal.getModZ() * halfWidth);
+
+      var lookingFaceOrthogonalOpposite = lookingFaceOrthogonal.getOppositeFace();
+      var lookingFaceOpposite = lookingFace.getOppositeFace();
+
+      var viewingBoxLocationsIndex = 0;
+      var wallLocationsIndex = 0;
+
+      for (var rowIndex = 0; rowIndex < headGrid.length; ++rowIndex) {
+        var headRow = headGrid[rowIndex];
+
+        for (var columnIndex = 0; columnIndex < headRow.length; ++columnIndex) {
+          var currentWallLocation = bottomLeft.clone().add(
+            lookingFaceOrthogonalOpposite.getModX() * columnIndex,
+            rowIndex,
+            lookingFaceOrthogonalOpposite.getModZ() * columnIndex
+          );
+
+          var currentHeadLocation = currentWallLocation.clone().add(lookingFaceOpposite.getModX(), 0, lookingFaceOpposite.getModZ());
+
+          wallLocations[wallLocationsIndex++] = new LocationAndHash(currentWallLocation);
+          headRow[columnIndex] = new LocationAndHash(currentHeadLocation);
+
+          for (var depthOffset = 2; depthOffset <= viewingBoxDepth + 1; ++depthOffset) {
+            viewingBoxLocations[viewingBoxLocationsIndex++] = new LocationAndHash(
+              currentWallLocation.clone().add(lookingFaceOpposite.getModX() * depthOffset, 0, lookingFaceOpposite.getModZ() * depthOffset)
+            );
+          }
+        }
+      }
+    }
+
+    void show() {
+      var wallTypeBlockData = parameters.wallType().createBlockData();
+
+      for (var wallLocationAndHash : wallLocations)
+        restoreRoutineByLocationHash.put(wallLocationAndHash.hash, () -> communicator.sendBlockChange(viewer, wallLocationAndHash.location, wallTypeBlockData));
+
+      var airBlockData = Material.AIR.createBlockData();
+
+      for (var viewingBoxLocationAndHash : viewingBoxLocations)
+        restoreRoutineByLocationHash.put(viewingBoxLocationAndHash.hash, () -> communicator.sendBlockChange(viewer, viewingBoxLocationAndHash.location, airBlockData));
+
+      var slotIndex = 0;
+
+      for (var rowIndex = headGrid.length - 1; rowIndex >= 0; --rowIndex) {
+        for (var locationAndHash : headGrid[rowIndex]) {
+          var currentHead = heads.get(currentPage * pageSize + slotIndex++);
+
+          headByLocationHash.put(locationAndHash.hash, currentHead);
+          restoreRoutineByLocationHash.put(
+            locationAndHash.hash,
+            () -> communicator.updateBlockToTexturedSkull(viewer, lookingFace.getOppositeFace(), locationAndHash.location, currentHead.textures())
+          );
+        }
+      }
+    }
+
+    private static long fastCoordinateHash(Location location) {
+      var x = location.getBlockX();
+      var y = location.getBlockY();
+      var z = location.getBlockZ();
+
+      return (
+        ((y + 128) & 0x3FF) |
+          (((x & 0x3FFFFFF) | (x < 0 ? 0x4000000L : 0)) << 10) |
+          (((z & 0x3FFFFFF) | (z < 0 ? 0x4000000L : 0)) << (10 + 27))
+      );
+    }
+  }
+}
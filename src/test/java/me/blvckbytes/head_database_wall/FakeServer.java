@@ -0,0 +1,179 @@
+package me.blvckbytes.head_database_wall;
+
+import org.bukkit.*;
+import org.bukkit.block.Block;
+import org.bukkit.block.BlockState;
+import org.bukkit.block.TileState;
+import org.bukkit.block.data.BlockData;
+import org.bukkit.entity.Player;
+
+import java.lang.reflect.Proxy;
+import java.util.Arrays;
+import java.util.EnumMap;
+import java.util.Map;
+import java.util.UUID;
+import java.util.function.Function;
+import java.util.logging.Logger;
+
+/**
+ * Minimal stand-ins for the server-side API, backed by dynamic proxies which only answer the few
+ * calls made by sessions, while falling back to neutral defaults for everything else.
+ */
+public class FakeServer {
+
+  // Height-limits of an overworld
+  public static final int MIN_HEIGHT = -64, MAX_HEIGHT = 320;
+
+  private static final Map<Material, BlockData> blockDataByMaterial = new EnumMap<>(Material.class);
+
+  @FunctionalInterface
+  public interface MaterialAt {
+    Material get(int x, int y, int z);
+  }
+
+  public static void install() {
+    if (Bukkit.getServer() != null)
+      return;
+
+    var logger = Logger.getLogger("FakeServer");
+
+    Bukkit.setServer(make(Server.class, Map.of(
+      "getLogger", args -> logger,
+      "getName", args -> "FakeServer",
+      "getVersion", args -> "headless",
+      "getBukkitVersion", args -> "headless",
+      "createBlockData", args -> blockData((Material) args[0])
+    )));
+  }
+
+  public static synchronized BlockData blockData(Material material) {
+    return blockDataByMaterial.computeIfAbsent(material, key -> make(BlockData.class, Map.of(
+      "getMaterial", args -> key,
+      "getAsString", args -> key.name().toLowerCase()
+    )));
+  }
+
+  /**
+   * @return A world which is made up of nothing but air, without any tile-entities
+   */
+  public static World airWorld(String name) {
+    return world(name, (x, y, z) -> Material.AIR);
+  }
+
+  /**
+   * @return A world made up of the given materials, where the given tile-entities are reported by the chunks they lie in
+   */
+  public static World world(String name, MaterialAt materialAt, BlockState... tileEntities) {
+    var worldId = UUID.nameUUIDFromBytes(name.getBytes());
+
+    return make(World.class, Map.of(
+      "getName", args -> name,
+      "getUID", args -> worldId,
+      "getMinHeight", args -> MIN_HEIGHT,
+      "getMaxHeight", args -> MAX_HEIGHT,
+      "getBlockAt", args -> {
+        var material = materialAt.get((int) args[0], (int) args[1], (int) args[2]);
+
+        return make(Block.class, Map.of(
+          "getBlockData", blockArgs -> blockData(material),
+          "getType", blockArgs -> material
+        ));
+      },
+      "getChunkAt", args -> {
+        var chunkX = (int) args[0];
+        var chunkZ = (int) args[1];
+
+        var snapshot = make(ChunkSnapshot.class, Map.of(
+          "getX", snapshotArgs -> chunkX,
+          "getZ", snapshotArgs -> chunkZ,
+          "getBlockData", snapshotArgs -> blockData(materialAt.get((chunkX << 4) | (int) snapshotArgs[0], (int) snapshotArgs[1], (chunkZ << 4) | (int) snapshotArgs[2])),
+          "getBlockType", snapshotArgs -> materialAt.get((chunkX << 4) | (int) snapshotArgs[0], (int) snapshotArgs[1], (chunkZ << 4) | (int) snapshotArgs[2])
+        ));
+
+        var chunkTileEntities = Arrays.stream(tileEntities)
+          .filter(tileEntity -> tileEntity.getX() >> 4 == chunkX && tileEntity.getZ() >> 4 == chunkZ)
+          .toArray(BlockState[]::new);
+
+        return make(Chunk.class, Map.of(
+          "getX", chunkArgs -> chunkX,
+          "getZ", chunkArgs -> chunkZ,
+          "getChunkSnapshot", chunkArgs -> snapshot,
+          "getTileEntities", chunkArgs -> chunkTileEntities
+        ));
+      }
+    ));
+  }
+
+  /**
+   * @return A tile-entity at the given coordinates, which does not hold any data
+   */
+  public static TileState tileState(Material material, int x, int y, int z) {
+    return make(TileState.class, Map.of(
+      "getType", args -> material,
+      "getBlockData", args -> blockData(material),
+      "getX", args -> x,
+      "getY", args -> y,
+      "getZ", args -> z
+    ));
+  }
+
+  /**
+   * @return An online player, standing still at the given location, who swallows all messages
+   */
+  public static Player player(String name, Location location) {
+    var playerId = UUID.nameUUIDFromBytes(name.getBytes());
+
+    return make(Player.class, Map.of(
+      "getName", args -> name,
+      "getUniqueId", args -> playerId,
+      "getLocation", args -> location.clone(),
+      "getWorld", args -> location.getWorld(),
+      "isOnline", args -> true
+    ));
+  }
+
+  @SuppressWarnings("unchecked")
+  private static <T> T make(Class<T> type, Map<String, Function<Object[], Object>> answerByMethodName) {
+    return (T) Proxy.newProxyInstance(type.getClassLoader(), new Class<?>[] { type }, (proxy, method, args) -> {
+      var answer = answerByMethodName.get(method.getName());
+
+      if (answer != null)
+        return answer.apply(args);
+
+      return switch (method.getName()) {
+        case "equals" -> proxy == args[0];
+        case "hashCode" -> System.identityHashCode(proxy);
+        case "toString" -> type.getSimpleName() + "@" + Integer.toHexString(System.identityHashCode(proxy));
+        default -> defaultValue(method.getReturnType());
+      };
+    });
+  }
+
+  private static Object defaultValue(Class<?> type) {
+    if (!type.isPrimitive() || type == void.class)
+      return null;
+
+    if (type == boolean.class)
+      return false;
+
+    if (type == char.class)
+      return '\0';
+
+    if (type == long.class)
+      return 0L;
+
+    if (type == float.class)
+      return 0F;
+
+    if (type == double.class)
+      return 0D;
+
+    if (type == byte.class)
+      return (byte) 0;
+
+    if (type == short.class)
+      return (short) 0;
+
+    return 0;
+  }
+}
@@ -0,0 +1,347 @@
+package me.blvckbytes.head_database_wall;
+
+import org.bukkit.Location;
+import org.bukkit.Material;
+import org.bukkit.World;
+import org.bukkit.entity.Player;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+
+import java.util.*;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicIntegerArray;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Hammers the session-directory's filter-decisions and lookups from several packet-threads, while the
+ * main-thread keeps opening, paging, sharing and closing sessions through it, just like the registry does.
+ * Whether a player's changes are filtered is published alongside a version, which is odd while being changed;
+ * a decision made while the version stayed the same and even has to agree with what has been published.
+ */
+public class HeadWallSessionConcurrencyTest {
+
+  private static final int NUMBER_OF_OWNERS = 8;
+  private static final int NUMBER_OF_PACKET_THREADS = 4;
+  private static final int NUMBER_OF_MAIN_THREAD_TICKS = 3000;
+  private static final int WALL_SPACING_BLOCKS = 64;
+  private static final int CHANGES_PER_SECTION_UPDATE = 16;
+
+  private static final HeadWallParameters BLOCK_PARAMETERS = new HeadWallParameters(5, 8, 3, Material.COAL_BLOCK, true, HeadWallRenderMode.BLOCKS);
+  private static final HeadWallParameters DISPLAY_PARAMETERS = new HeadWallParameters(5, 8, 3, Material.COAL_BLOCK, true, HeadWallRenderMode.DISPLAY_ENTITIES);
+
+  private record Wall(Player owner, Player viewer, HeadWallGeometry geometry, HeadWallParameters parameters) {}
+
+  private final HeadWallSessionDirectory directory = new HeadWallSessionDirectory();
+
+  private final List<Wall> walls = new ArrayList<>();
+
+  // Owner and viewer of each wall in turn, such that a player's wall is found at half their index
+  private final List<Player> players = new ArrayList<>();
+
+  private final AtomicLongArray versionByPlayerIndex = new AtomicLongArray(NUMBER_OF_OWNERS * 2);
+  private final AtomicIntegerArray isFilteringByPlayerIndex = new AtomicIntegerArray(NUMBER_OF_OWNERS * 2);
+
+  private final AtomicLong numberOfStableDecisions = new AtomicLong();
+  private final AtomicLong numberOfStableFilteredDecisions = new AtomicLong();
+  private final AtomicLong numberOfLookups = new AtomicLong();
+
+  @BeforeAll
+  public static void installServer() {
+    FakeServer.install();
+  }
+
+  @Test
+  public void packetThreadsDecideConsistentlyWhileSessionsOpenAndClose() throws Exception {
+    var world = FakeServer.airWorld("world");
+    var heads = SyntheticHeads.make(400);
+    var communicator = new RecordingCommunicator();
+    var metrics = new WallMetrics();
+
+    makeWalls(world);
+
+    // Never part of any session, while standing right within the first wall
+    var outsider = FakeServer.player("Outsider", walls.get(0).owner.getLocation());
+
+    var errors = new ConcurrentLinkedQueue<Throwable>();
+    var isRunning = new AtomicBoolean(true);
+    var startLatch = new CountDownLatch(1);
+
+    var packetThreads = new ArrayList<Thread>();
+
+    for (var threadIndex = 0; threadIndex < NUMBER_OF_PACKET_THREADS; ++threadIndex) {
+      var packetThread = new Thread(() -> {
+        try {
+          startLatch.await();
+
+          var random = ThreadLocalRandom.current();
+
+          while (isRunning.get()) {
+            probe(random.nextInt(players.size()), random);
+            probeOutsider(outsider, random);
+          }
+        } catch (Throwable e) {
+          errors.add(e);
+        }
+      }, "PacketThread-" + threadIndex);
+
+      packetThread.start();
+      packetThreads.add(packetThread);
+    }
+
+    try {
+      startLatch.countDown();
+
+      var random = new Random(42);
+
+      for (var tick = 0; tick < NUMBER_OF_MAIN_THREAD_TICKS && errors.isEmpty(); ++tick) {
+        for (var wallIndex = 0; wallIndex < walls.size(); ++wallIndex)
+          tickWall(wallIndex, heads, communicator, metrics, random);
+      }
+    } finally {
+      isRunning.set(false);
+
+      for (var packetThread : packetThreads)
+        packetThread.join();
+    }
+
+    if (!errors.isEmpty()) {
+      var error = new AssertionError("Packet-threads failed " + errors.size() + " times");
+      errors.forEach(error::addSuppressed);
+      throw error;
+    }
+
+    var numberOfOpenWalls = 0;
+
+    for (var wall : walls) {
+      if (directory.isRegistered(wall.owner))
+        ++numberOfOpenWalls;
+    }
+
+    assertEquals(numberOfOpenWalls, directory.getSessions().size(), "Sessions have not been listed exactly once each");
+
+    for (var session : directory.unregisterAll())
+      session.close();
+
+    assertTrue(directory.getSessions().isEmpty(), "Sessions have been left registered");
+
+    for (var player : players)
+      assertNull(directory.getSession(player), player.getName() + " has been left within a session");
+
+    assertTrue(numberOfLookups.get() > 0, "The packet-threads never found an open session");
+    assertTrue(numberOfStableFilteredDecisions.get() > 0, "No stable decision filtered a change");
+    assertTrue(numberOfStableDecisions.get() > numberOfStableFilteredDecisions.get(), "No stable decision let a change pass");
+  }
+
+  /**
+   * Runs the decisions and lookups of the registry's packet-listeners for a block-change, a section-update and a click.
+   */
+  private void probe(int playerIndex, ThreadLocalRandom random) {
+    var player = players.get(playerIndex);
+    var wall = walls.get(playerIndex / 2);
+    var geometry = wall.geometry;
+
+    // The wall itself is guarded until the player has been released, no matter whether it has been drawn yet
+    var wallCellIndex = random.nextInt(geometry.getFirstCellIndexOfLayer(HeadWallGeometry.HEAD_LAYER));
+    var wallX = geometry.getCellX(wallCellIndex);
+    var wallY = geometry.getCellY(wallCellIndex);
+    var wallZ = geometry.getCellZ(wallCellIndex);
+
+    var versionBefore = versionByPlayerIndex.get(playerIndex);
+    var wasFiltering = isFilteringByPlayerIndex.get(playerIndex) == 1;
+
+    var didFilter = directory.filterBlockChange(player, wallX, wallY, wallZ);
+
+    if (isStable(playerIndex, versionBefore)) {
+      assertEquals(wasFiltering, didFilter, "The wall-cell's change of " + player.getName() + " has been decided upon wrongly");
+      numberOfStableDecisions.incrementAndGet();
+
+      if (didFilter)
+        numberOfStableFilteredDecisions.incrementAndGet();
+    }
+
+    // Players are only ever registered with their own wall
+    var foreignWall = walls.get((playerIndex / 2 + 1 + random.nextInt(walls.size() - 1)) % walls.size());
+    var foreignCellIndex = random.nextInt(foreignWall.geometry.getNumberOfCells());
+
+    assertFalse(
+      directory.filterBlockChange(player, foreignWall.geometry.getCellX(foreignCellIndex), foreignWall.geometry.getCellY(foreignCellIndex), foreignWall.geometry.getCellZ(foreignCellIndex)),
+      "A change at a foreign wall has been filtered for " + player.getName()
+    );
+
+    probeSectionUpdate(playerIndex, geometry, wallX, wallY, wallZ, random);
+
+    // Clicks resolve heads while the main-thread replaces the slots
+    var session = directory.getSession(player);
+
+    if (session == null)
+      return;
+
+    numberOfLookups.incrementAndGet();
+
+    var headCellIndex = geometry.getHeadCellIndex(random.nextInt(geometry.getPageSize()));
+    var headX = geometry.getCellX(headCellIndex);
+    var headY = geometry.getCellY(headCellIndex);
+    var headZ = geometry.getCellZ(headCellIndex);
+
+    session.getHeadAtLocation(new Location(player.getWorld(), headX, headY, headZ));
+    session.queueInteraction(player, headX, headY, headZ, random.nextBoolean());
+    session.onEntityInteract(player, Integer.MAX_VALUE - random.nextInt(1024), random.nextBoolean());
+  }
+
+  /**
+   * Sends a section-update which contains the given wall-cell alongside random other changes within its section.
+   */
+  private void probeSectionUpdate(int playerIndex, HeadWallGeometry geometry, int wallX, int wallY, int wallZ, ThreadLocalRandom random) {
+    var player = players.get(playerIndex);
+
+    var sectionX = wallX >> 4;
+    var sectionY = wallY >> 4;
+    var sectionZ = wallZ >> 4;
+
+    var relativePositions = new short[CHANGES_PER_SECTION_UPDATE];
+    var wallChangeIndex = random.nextInt(CHANGES_PER_SECTION_UPDATE);
+
+    for (var changeIndex = 0; changeIndex < CHANGES_PER_SECTION_UPDATE; ++changeIndex) {
+      if (changeIndex == wallChangeIndex)
+        relativePositions[changeIndex] = (short) (((wallX & 15) << 8) | ((wallZ & 15) << 4) | (wallY & 15));
+      else
+        relativePositions[changeIndex] = (short) random.nextInt(1 << 12);
+    }
+
+    var keptRelativePositions = new short[CHANGES_PER_SECTION_UPDATE];
+    var keptIndices = new int[CHANGES_PER_SECTION_UPDATE];
+
+    var versionBefore = versionByPlayerIndex.get(playerIndex);
+    var wasFiltering = isFilteringByPlayerIndex.get(playerIndex) == 1;
+
+    var numberOfKeptChanges = directory.filterSectionChanges(player, sectionX, sectionY, sectionZ, relativePositions, keptRelativePositions, keptIndices);
+
+    if (!isStable(playerIndex, versionBefore))
+      return;
+
+    if (!wasFiltering) {
+      assertEquals(CHANGES_PER_SECTION_UPDATE, numberOfKeptChanges, "A section-update of " + player.getName() + " has been patched outside of a session");
+      return;
+    }
+
+    var firstHeadCellIndex = geometry.getFirstCellIndexOfLayer(HeadWallGeometry.HEAD_LAYER);
+
+    for (var keptIndex = 0; keptIndex < numberOfKeptChanges; ++keptIndex) {
+      var relativePosition = keptRelativePositions[keptIndex];
+
+      assertEquals(relativePositions[keptIndices[keptIndex]], relativePosition, "A kept change does not match its index");
+
+      var cellIndex = geometry.getCellIndex(
+        (sectionX << 4) | ((relativePosition >> 8) & 15),
+        (sectionY << 4) | (relativePosition & 15),
+        (sectionZ << 4) | ((relativePosition >> 4) & 15)
+      );
+
+      assertFalse(cellIndex >= 0 && cellIndex < firstHeadCellIndex, "A change of a wall-cell has been kept for " + player.getName());
+    }
+  }
+
+  private void probeOutsider(Player outsider, ThreadLocalRandom random) {
+    var geometry = walls.get(0).geometry;
+    var cellIndex = random.nextInt(geometry.getNumberOfCells());
+
+    assertFalse(
+      directory.filterBlockChange(outsider, geometry.getCellX(cellIndex), geometry.getCellY(cellIndex), geometry.getCellZ(cellIndex)),
+      "A change has been filtered for a player outside of any session"
+    );
+  }
+
+  private boolean isStable(int playerIndex, long versionBefore) {
+    return (versionBefore & 1) == 0 && versionByPlayerIndex.get(playerIndex) == versionBefore;
+  }
+
+  /**
+   * Advances the wall by one tick, in the same order of operations as the registry.
+   */
+  private void tickWall(int wallIndex, List<CatalogHead> heads, HeadWallCommunicator communicator, WallMetrics metrics, Random random) {
+    var wall = walls.get(wallIndex);
+    var ownerIndex = wallIndex * 2;
+    var viewerIndex = ownerIndex + 1;
+
+    var session = directory.getSession(wall.owner);
+
+    if (session == null) {
+      if (random.nextInt(4) != 0)
+        return;
+
+      var newSession = new HeadWallSession(wall.owner, heads, wall.parameters, communicator, metrics);
+
+      publish(ownerIndex, true, () -> assertTrue(directory.register(wall.owner, newSession), "The owner has been part of a session already"));
+      newSession.show();
+      return;
+    }
+
+    switch (random.nextInt(8)) {
+      case 0 -> {
+        var viewers = session.getViewers();
+
+        for (var viewer : viewers)
+          assertTrue(directory.unregister(viewer, session), viewer.getName() + " has not been part of the session");
+
+        session.close();
+
+        // Stands in for the restore having been sent
+        for (var viewer : viewers)
+          publish(session.isOwner(viewer) ? ownerIndex : viewerIndex, false, () -> directory.release(viewer, session));
+      }
+      case 1 -> publish(viewerIndex, true, () -> {
+        if (directory.register(wall.viewer, session))
+          session.addViewer(wall.viewer);
+      });
+      case 2 -> {
+        if (directory.unregister(wall.viewer, session)) {
+          session.removeViewer(wall.viewer);
+          publish(viewerIndex, false, () -> directory.release(wall.viewer, session));
+        }
+      }
+      default -> session.queuePageTurn(random.nextBoolean() ? 1 : -1);
+    }
+
+    if (!directory.isRegistered(wall.owner))
+      return;
+
+    session.applyPendingPageTurns();
+    session.drainPendingInteractions(interaction -> {});
+    session.drainPendingInventoryResyncs((player, resyncs) -> {});
+    session.prefetchAdjacentPages(1);
+  }
+
+  /**
+   * Runs a change of whether the player's changes are filtered, while announcing it to the packet-threads.
+   */
+  private void publish(int playerIndex, boolean isFiltering, Runnable change) {
+    versionByPlayerIndex.incrementAndGet(playerIndex);
+    change.run();
+    isFilteringByPlayerIndex.set(playerIndex, isFiltering ? 1 : 0);
+    versionByPlayerIndex.incrementAndGet(playerIndex);
+  }
+
+  private void makeWalls(World world) {
+    for (var wallIndex = 0; wallIndex < NUMBER_OF_OWNERS; ++wallIndex) {
+      var location = new Location(world, wallIndex * WALL_SPACING_BLOCKS + .5, 64, .5, 0, 0);
+      var parameters = wallIndex % 2 == 0 ? BLOCK_PARAMETERS : DISPLAY_PARAMETERS;
+
+      var wall = new Wall(
+        FakeServer.player("Owner" + wallIndex, location),
+        FakeServer.player("Viewer" + wallIndex, location),
+        new HeadWallGeometry(location.getBlockX(), location.getBlockY(), location.getBlockZ(), location.getYaw(), parameters),
+        parameters
+      );
+
+      walls.add(wall);
+      players.add(wall.owner);
+      players.add(wall.viewer);
+    }
+  }
+}
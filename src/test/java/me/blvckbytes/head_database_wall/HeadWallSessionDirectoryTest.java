@@ -0,0 +1,86 @@
+package me.blvckbytes.head_database_wall;
+
+import org.bukkit.Location;
+import org.bukkit.Material;
+import org.bukkit.entity.Player;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class HeadWallSessionDirectoryTest {
+
+  private static final HeadWallParameters PARAMETERS = new HeadWallParameters(5, 8, 3, Material.COAL_BLOCK, true, HeadWallRenderMode.BLOCKS);
+
+  @BeforeAll
+  public static void installServer() {
+    FakeServer.install();
+  }
+
+  @Test
+  public void cellsStayGuardedUntilTheRestoreHasBeenSent() {
+    var directory = new HeadWallSessionDirectory();
+    var player = makePlayer("Player");
+    var session = makeSession(player);
+    var geometry = makeGeometry(player);
+
+    assertTrue(directory.register(player, session));
+    assertTrue(directory.unregister(player, session));
+
+    // The player has left, but the restore is still underway
+    assertNull(directory.getSession(player), "The session is still listed after having been left");
+    assertTrue(directory.getSessions().isEmpty(), "The session is still ticked after having been left");
+    assertTrue(directory.filterBlockChange(player, geometry.getCellX(0), geometry.getCellY(0), geometry.getCellZ(0)), "The wall has not been guarded while restoring");
+
+    directory.release(player, session);
+
+    assertFalse(directory.isFiltering(player), "The player's changes are still being filtered after having been released");
+    assertFalse(directory.filterBlockChange(player, geometry.getCellX(0), geometry.getCellY(0), geometry.getCellZ(0)), "The wall has been guarded after the restore has been sent");
+  }
+
+  @Test
+  public void joiningAnotherSessionTakesOverFromTheRestoringOne() {
+    var directory = new HeadWallSessionDirectory();
+    var player = makePlayer("Player");
+    var restoringSession = makeSession(player);
+    var newSession = makeSession(makePlayer("Owner"));
+
+    assertTrue(directory.register(player, restoringSession));
+    assertTrue(directory.unregister(player, restoringSession));
+    assertTrue(directory.register(player, newSession));
+
+    // The restoring session's release arrives late, and must not affect the new session
+    directory.release(player, restoringSession);
+
+    assertSame(newSession, directory.getSession(player));
+    assertFalse(directory.unregister(player, restoringSession), "A session the player has left has been unregistered again");
+    assertSame(newSession, directory.getSession(player));
+  }
+
+  @Test
+  public void forgettingDropsTheRestoringSession() {
+    var directory = new HeadWallSessionDirectory();
+    var player = makePlayer("Player");
+    var session = makeSession(player);
+
+    assertTrue(directory.register(player, session));
+    assertTrue(directory.unregister(player, session));
+
+    directory.forget(player);
+
+    assertFalse(directory.isFiltering(player), "The player's changes are still being filtered after having quit");
+  }
+
+  private static Player makePlayer(String name) {
+    return FakeServer.player(name, new Location(FakeServer.airWorld("world"), .5, 64, .5, 0, 0));
+  }
+
+  private static HeadWallSession makeSession(Player owner) {
+    return new HeadWallSession(owner, SyntheticHeads.make(40), PARAMETERS, new RecordingCommunicator(), new WallMetrics());
+  }
+
+  private static HeadWallGeometry makeGeometry(Player owner) {
+    var location = owner.getLocation();
+    return new HeadWallGeometry(location.getBlockX(), location.getBlockY(), location.getBlockZ(), location.getYaw(), PARAMETERS);
+  }
+}
@@ -0,0 +1,61 @@
+package me.blvckbytes.head_database_wall;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Runs a small load-simulation per render-mode and holds its outcome against limits, which leave a
+ * generous margin to what such a run measures, as to only trip on actual regressions rather than on
+ * slow machines. See LoadSimulator for larger runs.
+ */
+public class LoadSimulationTest {
+
+  private static final String SETTINGS = "players=40 viewersPerWall=2 ticks=400 heads=2000 scrollsPerMinute=60 clicksPerMinute=30 paced=false";
+
+  // Per player, including the owner's idle prefetching; measured at about 65 packets and 14 KiB per second
+  private static final double MAX_PACKETS_PER_PLAYER_SECOND = 80;
+  private static final double MAX_ESTIMATED_BYTES_PER_PLAYER_SECOND = 16 * 1024;
+
+  // Measured below one microsecond, timing included
+  private static final double MAX_FILTER_NANOS_PER_BLOCK_CHANGE = 5_000;
+
+  // Measured at about one percent of the tick's budget on average, with single ticks of below ten milliseconds
+  private static final double MAX_MEAN_TICK_BUDGET_SHARE = .05;
+  private static final double MAX_P99_TICK_BUDGET_SHARE = 1;
+
+  @Test
+  public void blockWallsStayWithinTheirLimits() {
+    assertWithinLimits(LoadSimulator.simulate(LoadSimulator.Settings.parse(SETTINGS, "renderMode=BLOCKS")));
+  }
+
+  @Test
+  public void displayWallsStayWithinTheirLimits() {
+    assertWithinLimits(LoadSimulator.simulate(LoadSimulator.Settings.parse(SETTINGS, "renderMode=DISPLAY_ENTITIES")));
+  }
+
+  private void assertWithinLimits(LoadSimulator.Result result) {
+    var seconds = result.settings().ticks() / 20.0;
+
+    // Otherwise, the run would not have put anything to the test
+    assertTrue(result.pageTurns() > 0, "No page has been turned");
+    assertTrue(result.interactions() > 0, "No head has been clicked");
+    assertTrue(result.blockedPackets() > 0, "No block-change has been filtered");
+
+    var packetsPerSecond = result.getPacketsPerPlayer() / seconds;
+    var bytesPerSecond = result.getEstimatedBytesPerPlayer() / seconds;
+
+    assertTrue(packetsPerSecond <= MAX_PACKETS_PER_PLAYER_SECOND, "Players have been sent " + packetsPerSecond + " packets per second");
+    assertTrue(bytesPerSecond <= MAX_ESTIMATED_BYTES_PER_PLAYER_SECOND, "Players have been sent about " + bytesPerSecond + " bytes per second");
+
+    var filterNanos = result.getFilterNanosPerBlockChange();
+
+    assertTrue(filterNanos <= MAX_FILTER_NANOS_PER_BLOCK_CHANGE, "Filtering took " + filterNanos + "ns per block-change");
+
+    var meanTickShare = result.getMeanTickNanos() / LoadSimulator.TICK_NANOS;
+    var p99TickShare = (double) result.getTickNanosPercentile(.99) / LoadSimulator.TICK_NANOS;
+
+    assertTrue(meanTickShare <= MAX_MEAN_TICK_BUDGET_SHARE, "Ticking took " + meanTickShare * 100 + "% of the tick's budget on average");
+    assertTrue(p99TickShare <= MAX_P99_TICK_BUDGET_SHARE, "Ticking took " + p99TickShare * 100 + "% of the tick's budget at the 99th percentile");
+  }
+}
@@ -0,0 +1,302 @@
+package me.blvckbytes.head_database_wall;
+
+import org.bukkit.Location;
+import org.bukkit.Material;
+import org.bukkit.entity.Player;
+
+import java.util.*;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Drives many concurrent sessions without a server: walls are opened, paged and clicked at the
+ * configured rates, while outbound block-changes are pushed through the registry's packet-filter.
+ * Sessions run against fakes of the world and its players, as well as against a communicator
+ * which merely records the traffic the registry would have sent. A small run is part of the tests,
+ * see LoadSimulationTest.
+ *
+ * Run via: mvn -Pbenchmarks test-compile exec:exec@load-simulation [-Dsimulation.arguments="players=300 ticks=600"]
+ */
+public class LoadSimulator {
+
+  public static final long TICK_NANOS = 50_000_000L;
+  private static final int WALL_SPACING_BLOCKS = 64;
+
+  public record Settings(
+    int players,
+    int viewersPerWall,
+    int ticks,
+    int heads,
+    double scrollsPerMinute,
+    double clicksPerMinute,
+    int blockChangesPerTick,
+    HeadWallRenderMode renderMode,
+    boolean paced
+  ) {
+    public static Settings parse(String... args) {
+      var valueByKey = new HashMap<String, String>();
+
+      for (var arg : args) {
+        for (var pair : arg.trim().split("\\s+")) {
+          var separatorIndex = pair.indexOf('=');
+
+          if (separatorIndex > 0)
+            valueByKey.put(pair.substring(0, separatorIndex), pair.substring(separatorIndex + 1));
+        }
+      }
+
+      return new Settings(
+        Math.max(1, Integer.parseInt(valueByKey.getOrDefault("players", "300"))),
+        Math.max(1, Integer.parseInt(valueByKey.getOrDefault("viewersPerWall", "1"))),
+        Math.max(1, Integer.parseInt(valueByKey.getOrDefault("ticks", "1200"))),
+        Integer.parseInt(valueByKey.getOrDefault("heads", "20000")),
+        Double.parseDouble(valueByKey.getOrDefault("scrollsPerMinute", "20")),
+        Double.parseDouble(valueByKey.getOrDefault("clicksPerMinute", "6")),
+        Integer.parseInt(valueByKey.getOrDefault("blockChangesPerTick", "20")),
+        HeadWallRenderMode.valueOf(valueByKey.getOrDefault("renderMode", "BLOCKS")),
+        Boolean.parseBoolean(valueByKey.getOrDefault("paced", "true"))
+      );
+    }
+  }
+
+  public record Result(
+    Settings settings,
+    int numberOfWalls,
+    long openNanos,
+    long sentPackets,
+    long sentBytes,
+    long encodedPackets,
+    long encodedBytes,
+    long pageTurns,
+    long interactions,
+    long filterNanos,
+    long filteredPackets,
+    long blockedPackets,
+    long[] sortedTickNanos,
+    String metricsJson
+  ) {
+    public double getPacketsPerPlayer() {
+      return (double) sentPackets / settings.players;
+    }
+
+    // Bytes are the registry's own estimates of the packets' sizes, as no packets are actually being built
+    public double getEstimatedBytesPerPlayer() {
+      return (double) sentBytes / settings.players;
+    }
+
+    public double getFilterNanosPerBlockChange() {
+      return (double) filterNanos / Math.max(1, filteredPackets);
+    }
+
+    public double getMeanTickNanos() {
+      return (double) Arrays.stream(sortedTickNanos).sum() / sortedTickNanos.length;
+    }
+
+    public long getTickNanosPercentile(double percentile) {
+      return sortedTickNanos[Math.min(sortedTickNanos.length - 1, (int) (sortedTickNanos.length * percentile))];
+    }
+  }
+
+  private record SimulatedWall(HeadWallSession session, HeadWallGeometry geometry) {}
+
+  private final Settings settings;
+  private final HeadWallParameters parameters;
+  private final RecordingCommunicator communicator;
+  private final WallMetrics metrics;
+  private final Random random;
+
+  private final HeadWallSessionDirectory sessionDirectory;
+  private final List<Player> players;
+  private final List<SimulatedWall> walls;
+
+  private long openNanos;
+  private long filterNanos, filteredPackets, blockedPackets;
+  private long pageTurns, interactions;
+
+  private LoadSimulator(Settings settings) {
+    this.settings = settings;
+    this.parameters = new HeadWallParameters(5, 8, 3, Material.COAL_BLOCK, true, settings.renderMode);
+    this.communicator = new RecordingCommunicator();
+    this.metrics = new WallMetrics();
+    this.random = new Random(42);
+    this.sessionDirectory = new HeadWallSessionDirectory();
+    this.players = new ArrayList<>();
+    this.walls = new ArrayList<>();
+  }
+
+  public static void main(String[] args) {
+    report(simulate(Settings.parse(args)));
+  }
+
+  public static Result simulate(Settings settings) {
+    FakeServer.install();
+
+    var simulator = new LoadSimulator(settings);
+
+    simulator.openWalls(SyntheticHeads.make(settings.heads));
+    return simulator.run();
+  }
+
+  private void openWalls(List<CatalogHead> heads) {
+    var world = FakeServer.airWorld("world");
+
+    for (var playerIndex = 0; playerIndex < settings.players; ++playerIndex) {
+      var wallIndex = playerIndex / settings.viewersPerWall;
+      var location = new Location(world, wallIndex * WALL_SPACING_BLOCKS + .5, 64, .5, 0, 0);
+      var player = FakeServer.player("Player" + playerIndex, location);
+
+      players.add(player);
+
+      var openStart = System.nanoTime();
+
+      if (playerIndex % settings.viewersPerWall == 0) {
+        var session = new HeadWallSession(player, heads, parameters, communicator, metrics);
+        session.show();
+
+        sessionDirectory.register(player, session);
+
+        walls.add(new SimulatedWall(session, new HeadWallGeometry(
+          location.getBlockX(), location.getBlockY(), location.getBlockZ(), location.getYaw(), parameters
+        )));
+      } else {
+        var session = walls.get(wallIndex).session;
+        session.addViewer(player);
+        sessionDirectory.register(player, session);
+      }
+
+      openNanos += System.nanoTime() - openStart;
+    }
+  }
+
+  private Result run() {
+    var scrollChancePerTick = settings.scrollsPerMinute / (60 * 20);
+    var clickChancePerTick = settings.clicksPerMinute / (60 * 20);
+
+    var tickNanos = new long[settings.ticks];
+    var nextTickStart = System.nanoTime();
+
+    for (var tick = 0; tick < settings.ticks; ++tick) {
+      for (var wall : walls) {
+        if (random.nextDouble() < scrollChancePerTick)
+          wall.session.queuePageTurn(random.nextBoolean() ? 1 : -1);
+      }
+
+      for (var playerIndex = 0; playerIndex < players.size(); ++playerIndex) {
+        if (random.nextDouble() < clickChancePerTick)
+          clickRandomHead(playerIndex);
+      }
+
+      var tickStart = System.nanoTime();
+      tickSessions();
+      tickNanos[tick] = System.nanoTime() - tickStart;
+
+      // Packet-threads are not part of the tick, but are timed as they'd load the server all the same
+      for (var player : players)
+        injectBlockChanges(player);
+
+      if (settings.paced) {
+        nextTickStart += TICK_NANOS;
+        LockSupport.parkNanos(nextTickStart - System.nanoTime());
+      }
+    }
+
+    for (var wall : walls)
+      wall.session.close();
+
+    Arrays.sort(tickNanos);
+
+    long sentPackets = 0;
+    long sentBytes = 0;
+
+    for (var player : players) {
+      var traffic = communicator.getTraffic(player);
+      sentPackets += traffic.packets;
+      sentBytes += traffic.bytes;
+    }
+
+    var encodedTraffic = communicator.getEncodedTraffic();
+
+    return new Result(
+      settings, walls.size(), openNanos, sentPackets, sentBytes, encodedTraffic.packets, encodedTraffic.bytes,
+      pageTurns, interactions, filterNanos, filteredPackets, blockedPackets, tickNanos, metrics.toJson()
+    );
+  }
+
+  // Mirrors HeadWallSessionRegistry#tickSessions, where nothing is ever pending on the network
+  private void tickSessions() {
+    for (var wall : walls) {
+      var session = wall.session;
+
+      if (session.applyPendingPageTurns())
+        ++pageTurns;
+
+      session.drainPendingInteractions(interaction -> {
+        var location = new Location(interaction.player().getWorld(), interaction.x(), interaction.y(), interaction.z());
+
+        if (session.getHeadAtLocation(location) != null)
+          ++interactions;
+      });
+
+      session.prefetchAdjacentPages(1);
+    }
+  }
+
+  private void clickRandomHead(int playerIndex) {
+    var player = players.get(playerIndex);
+    var session = sessionDirectory.getSession(player);
+
+    if (session == null)
+      return;
+
+    var geometry = walls.get(playerIndex / settings.viewersPerWall).geometry;
+    var cellIndex = geometry.getHeadCellIndex(random.nextInt(geometry.getPageSize()));
+
+    session.queueInteraction(
+      player, geometry.getCellX(cellIndex), geometry.getCellY(cellIndex), geometry.getCellZ(cellIndex),
+      random.nextBoolean()
+    );
+  }
+
+  private void injectBlockChanges(Player player) {
+    var location = player.getLocation();
+
+    for (var changeIndex = 0; changeIndex < settings.blockChangesPerTick; ++changeIndex) {
+      var x = location.getBlockX() + random.nextInt(33) - 16;
+      var y = location.getBlockY() + random.nextInt(17) - 8;
+      var z = location.getBlockZ() + random.nextInt(33) - 16;
+
+      var filterStart = System.nanoTime();
+
+      // Same decision as HeadWallSessionRegistry#onPacketSending for single block-changes
+      var isBlocked = sessionDirectory.isFiltering(player) && sessionDirectory.filterBlockChange(player, x, y, z);
+
+      filterNanos += System.nanoTime() - filterStart;
+
+      ++filteredPackets;
+
+      if (isBlocked)
+        ++blockedPackets;
+    }
+  }
+
+  private static void report(Result result) {
+    var settings = result.settings;
+    var numberOfPlayers = settings.players;
+    var seconds = settings.ticks / 20.0;
+    var meanTickNanos = result.getMeanTickNanos();
+
+    System.out.printf("Simulated %d players on %d walls (%s) for %d ticks%n", numberOfPlayers, result.numberOfWalls, settings.renderMode, settings.ticks);
+    System.out.printf("Opening:      %.3f ms per player%n", result.openNanos / 1E6 / numberOfPlayers);
+    System.out.printf("Traffic:      %.1f packets, ~%.1f KiB (estimated) per player; ~%.2f KiB/s per player%n", result.getPacketsPerPlayer(), result.getEstimatedBytesPerPlayer() / 1024.0, result.getEstimatedBytesPerPlayer() / 1024.0 / seconds);
+    System.out.printf("Encoded:      %d packets, ~%.1f KiB (estimated) in total, for %d packets, ~%.1f KiB sent%n", result.encodedPackets, result.encodedBytes / 1024.0, result.sentPackets, result.sentBytes / 1024.0);
+    System.out.printf("Activity:     %d page-turns, %d head-interactions%n", result.pageTurns, result.interactions);
+    System.out.printf("Filter:       %.1f ns per block-change, %d of %d blocked%n", result.getFilterNanosPerBlockChange(), result.blockedPackets, result.filteredPackets);
+    System.out.printf(
+      "Tick:         mean %.3f ms, p99 %.3f ms, max %.3f ms; %.2f%% of the tick-budget on average%n",
+      meanTickNanos / 1E6,
+      result.getTickNanosPercentile(.99) / 1E6,
+      result.sortedTickNanos[result.sortedTickNanos.length - 1] / 1E6,
+      100.0 * meanTickNanos / TICK_NANOS
+    );
+    System.out.println("Metrics:      " + result.metricsJson);
+  }
+}
@@ -0,0 +1,142 @@
+package me.blvckbytes.head_database_wall;
+
+import org.bukkit.Location;
+import org.bukkit.Material;
+import org.bukkit.block.BlockFace;
+import org.bukkit.block.TileState;
+import org.bukkit.block.data.BlockData;
+import org.bukkit.entity.Player;
+
+import javax.annotation.Nullable;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.UUID;
+
+/**
+ * Counts the packets and bytes which the registry would send, based on its very own estimates,
+ * instead of building any packets; packets of broadcasts are only counted as encoded once.
+ */
+public class RecordingCommunicator implements HeadWallCommunicator {
+
+  public static class Traffic {
+    public long packets;
+    public long bytes;
+
+    private void add(long packets, long bytes) {
+      this.packets += packets;
+      this.bytes += bytes;
+    }
+  }
+
+  private final Map<UUID, Traffic> trafficByPlayerId;
+  private final Traffic encodedTraffic;
+
+  private int nextEntityId;
+
+  public RecordingCommunicator() {
+    this.trafficByPlayerId = new HashMap<>();
+    this.encodedTraffic = new Traffic();
+    this.nextEntityId = Integer.MAX_VALUE;
+  }
+
+  public Traffic getTraffic(Player player) {
+    return trafficByPlayerId.computeIfAbsent(player.getUniqueId(), playerId -> new Traffic());
+  }
+
+  public Traffic getEncodedTraffic() {
+    return encodedTraffic;
+  }
+
+  @Override
+  public void sendBlockChange(Player player, Location location, BlockData blockData) {
+    getTraffic(player).add(1, HeadWallSessionRegistry.BLOCK_CHANGE_BYTES);
+  }
+
+  @Override
+  public void sendTileState(Player player, Location location, TileState tileState) {
+    getTraffic(player).add(1, HeadWallSessionRegistry.SKULL_TEXTURE_BASE_BYTES);
+  }
+
+  @Override
+  public void resendRealBlock(Player player, Location location) {
+    getTraffic(player).add(1, HeadWallSessionRegistry.BLOCK_CHANGE_BYTES);
+  }
+
+  @Override
+  public BlockData getSkullBlockData(BlockFace mountingFace) {
+    return FakeServer.blockData(Material.PLAYER_WALL_HEAD);
+  }
+
+  @Override
+  public void updateBlockToTexturedSkull(Player player, BlockFace mountingFace, Location location, String base64Textures) {
+    getTraffic(player).add(2, HeadWallSessionRegistry.BLOCK_CHANGE_BYTES + HeadWallSessionRegistry.SKULL_TEXTURE_BASE_BYTES + base64Textures.length());
+  }
+
+  @Override
+  public void sendBlockChanges(Collection<Player> players, BlockChangeBatch batch) {
+    long packets = 0;
+    long bytes = 0;
+
+    for (var sectionChanges : batch.getSectionChanges()) {
+      ++packets;
+
+      if (sectionChanges.size() == 1)
+        bytes += HeadWallSessionRegistry.BLOCK_CHANGE_BYTES;
+      else
+        bytes += HeadWallSessionRegistry.SECTION_CHANGE_BASE_BYTES + (long) sectionChanges.size() * HeadWallSessionRegistry.SECTION_CHANGE_ENTRY_BYTES;
+    }
+
+    for (var skullTexture : batch.getSkullTextures()) {
+      ++packets;
+      bytes += HeadWallSessionRegistry.SKULL_TEXTURE_BASE_BYTES + skullTexture.base64Textures().length();
+    }
+
+    packets += batch.getTileStates().size();
+    bytes += (long) batch.getTileStates().size() * HeadWallSessionRegistry.SKULL_TEXTURE_BASE_BYTES;
+
+    broadcast(players, packets, bytes);
+  }
+
+  @Override
+  public void cancelPendingChanges(Player player) {
+    // Nothing is ever held back, thus there's nothing to drop either
+  }
+
+  @Override
+  public boolean cancelPendingChanges(Player player, Object cancellationTag) {
+    return false;
+  }
+
+  @Override
+  public void runOnceSent(Player player, @Nullable Object cancellationTag, Runnable callback) {
+    callback.run();
+  }
+
+  @Override
+  public int allocateEntityId() {
+    return nextEntityId--;
+  }
+
+  @Override
+  public void spawnHeadDisplay(Collection<Player> players, int displayEntityId, int interactionEntityId, int x, int y, int z, BlockFace facing) {
+    broadcast(players, 2, 2L * HeadWallSessionRegistry.ENTITY_SPAWN_BYTES);
+  }
+
+  @Override
+  public void updateHeadDisplay(Collection<Player> players, int displayEntityId, @Nullable String base64Textures, @Nullable Object cancellationTag) {
+    broadcast(players, 1, HeadWallSessionRegistry.ENTITY_METADATA_BASE_BYTES + (base64Textures == null ? 0 : base64Textures.length()));
+  }
+
+  @Override
+  public void destroyEntities(Collection<Player> players, int[] entityIds) {
+    broadcast(players, 1, HeadWallSessionRegistry.ENTITY_DESTROY_BASE_BYTES + (long) entityIds.length * HeadWallSessionRegistry.ENTITY_DESTROY_ENTRY_BYTES);
+  }
+
+  private void broadcast(Collection<Player> players, long packets, long bytes) {
+    encodedTraffic.add(packets, bytes);
+
+    for (var player : players)
+      getTraffic(player).add(packets, bytes);
+  }
+}
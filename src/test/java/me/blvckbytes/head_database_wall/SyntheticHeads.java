@@ -0,0 +1,47 @@
+package me.blvckbytes.head_database_wall;
+
+import me.arcaniax.hdb.enums.CategoryEnum;
+
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Base64;
+import java.util.List;
+import java.util.Random;
+
+/**
+ * Generates a deterministic catalog which resembles the real one in size, naming and textures.
+ */
+public class SyntheticHeads {
+
+  private static final String[] ADJECTIVES = { "red", "green", "blue", "golden", "dark", "tiny", "giant", "frozen", "rusty", "happy" };
+  private static final String[] NOUNS = { "apple", "pineapple", "creeper", "globe", "chest", "pumpkin", "robot", "cat", "letter", "monitor" };
+  private static final String[] TAGS = { "food", "fruit", "mob", "decoration", "alphabet", "technology", "animal", "halloween", "christmas", "block" };
+
+  public static List<CatalogHead> make(int numberOfHeads) {
+    var random = new Random(42);
+    var categories = CategoryEnum.values();
+    var heads = new ArrayList<CatalogHead>(numberOfHeads);
+
+    for (var headIndex = 0; headIndex < numberOfHeads; ++headIndex) {
+      var name = pick(random, ADJECTIVES) + " " + pick(random, NOUNS) + " " + headIndex;
+      var tags = List.of(pick(random, TAGS), pick(random, TAGS));
+
+      heads.add(new CatalogHead(
+        String.valueOf(headIndex), name, makeTextures(headIndex),
+        categories[headIndex % categories.length], tags
+      ));
+    }
+
+    return heads;
+  }
+
+  public static String makeTextures(int seed) {
+    var url = "http://textures.minecraft.net/texture/" + String.format("%064x", (long) seed * 0x9E3779B97F4A7C15L);
+    var json = "{\"textures\":{\"SKIN\":{\"url\":\"" + url + "\"}}}";
+    return Base64.getEncoder().encodeToString(json.getBytes(StandardCharsets.UTF_8));
+  }
+
+  private static String pick(Random random, String[] values) {
+    return values[random.nextInt(values.length)];
+  }
+}